@@ -0,0 +1,35 @@
+package com.dinuberinde.api.limiter.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * It runs the benchmarks with 1, 2, 4... threads up to the given max number of threads,
+ * by default the number of available processors, with the gc profiler to report the allocation rate.
+ * Usage: java -jar target/benchmarks.jar [max threads] [benchmark regexp]
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws RunnerException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        String include = args.length > 1 ? args[1] : ConsumeBenchmark.class.getSimpleName();
+
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(String.format("jmh-result-%d-threads.json", threads))
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+}
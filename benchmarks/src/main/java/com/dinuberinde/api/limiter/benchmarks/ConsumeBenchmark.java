@@ -0,0 +1,128 @@
+package com.dinuberinde.api.limiter.benchmarks;
+
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiter;
+import com.dinuberinde.api.limiter.ApiMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks of {@link ApiLimiter#consume(String, String)} in the main traffic scenarios.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsumeBenchmark {
+    /**
+     * The max calls of the APIs that allow all the calls, the most a fixed window can count.
+     * With the short timeframe every API allows more than a billion calls per second,
+     * so that their benchmarks never measure the rejection path.
+     */
+    private final static int MAX_CALLS = 16_000_000;
+    private final static long TIMEFRAME = 10;
+    private final static int NUMBER_OF_CLIENTS = 10_000;
+    private final static int NUMBER_OF_ROOT_APIS = 500;
+
+    private final static String HOT_CLIENT_API = "/bench/hot-client";
+    private final static String MANY_CLIENTS_API = "/bench/many-clients";
+    private final static String ALL_CLIENTS_API = "/bench/all-clients";
+    private final static String STRIPED_API = "/bench/striped";
+    private final static int STRIPES = 16;
+    private final static String ROOT_API = "/bench/root/";
+    private final static String REJECTED_API = "/bench/rejected";
+    private final static String CLIENT = "client";
+
+    @State(Scope.Benchmark)
+    public static class Apis {
+
+        @Setup
+        public void setup() {
+            ApiLimiter.registerApis(new ApiConfig(HOT_CLIENT_API, MAX_CALLS, TIMEFRAME, CLIENT));
+            ApiLimiter.registerApis(ApiConfig.of(MANY_CLIENTS_API, MAX_CALLS, TIMEFRAME, Clients.NAMES));
+            ApiLimiter.registerApis(new ApiConfig(ALL_CLIENTS_API, MAX_CALLS, TIMEFRAME));
+            ApiLimiter.registerApis(new ApiConfig(STRIPED_API, MAX_CALLS, TIMEFRAME).withStripes(STRIPES));
+            ApiLimiter.registerApis(IntStream.range(0, NUMBER_OF_ROOT_APIS)
+                    .mapToObj(num -> new ApiConfig(ROOT_API + num + "/*", MAX_CALLS, TIMEFRAME, CLIENT))
+                    .toArray(ApiConfig[]::new));
+            ApiLimiter.registerApis(new ApiConfig(REJECTED_API, 1, TimeUnit.HOURS.toMillis(1), CLIENT));
+        }
+
+        @TearDown
+        public void checkAllowed() {
+            for (ApiMetrics metrics : ApiLimiter.getMetrics().getApis().values()) {
+                if (!metrics.getApiName().equals(REJECTED_API) && metrics.getRejected() > 0) {
+                    throw new IllegalStateException(String.format("API %s rejected %d calls", metrics.getApiName(), metrics.getRejected()));
+                }
+            }
+        }
+    }
+
+    /**
+     * The clients and the child APIs of the root APIs, iterated by each thread.
+     */
+    @State(Scope.Thread)
+    public static class Clients {
+        private final static String[] NAMES = IntStream.range(0, NUMBER_OF_CLIENTS)
+                .mapToObj(num -> CLIENT + "-" + num)
+                .toArray(String[]::new);
+        private final static String[] ROOT_API_CHILDREN = IntStream.range(0, NUMBER_OF_ROOT_APIS)
+                .mapToObj(num -> ROOT_API + num + "/orders/" + num)
+                .toArray(String[]::new);
+
+        private int next;
+
+        String nextClient() {
+            next = next + 1 == NAMES.length ? 0 : next + 1;
+            return NAMES[next];
+        }
+
+        String nextRootApiChild() {
+            next = next + 1 == ROOT_API_CHILDREN.length ? 0 : next + 1;
+            return ROOT_API_CHILDREN[next];
+        }
+    }
+
+    @Benchmark
+    public boolean hotClient(Apis apis) {
+        return ApiLimiter.consume(HOT_CLIENT_API, CLIENT);
+    }
+
+    @Benchmark
+    public boolean manyClients(Apis apis, Clients clients) {
+        return ApiLimiter.consume(MANY_CLIENTS_API, clients.nextClient());
+    }
+
+    @Benchmark
+    public boolean allClients(Apis apis) {
+        return ApiLimiter.consume(ALL_CLIENTS_API, CLIENT);
+    }
+
+    @Benchmark
+    public boolean stripedAllClients(Apis apis) {
+        return ApiLimiter.consume(STRIPED_API, CLIENT);
+    }
+
+    @Benchmark
+    public boolean rootApis(Apis apis, Clients clients) {
+        return ApiLimiter.consume(clients.nextRootApiChild(), CLIENT);
+    }
+
+    @Benchmark
+    public boolean rejected(Apis apis) {
+        return ApiLimiter.consume(REJECTED_API, CLIENT);
+    }
+}
@@ -0,0 +1,170 @@
+package com.dinuberinde.api.limiter.benchmarks;
+
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * It replays a trace of API calls against a registry with 1, 2, 4... threads up to the given max number of threads,
+ * by default the number of available processors. The calls are paced open loop: the i-th call of the trace is due
+ * i / rate seconds after the start, whichever thread makes it, and its latency is measured from that time,
+ * so that a stalled thread accounts for all the calls it delays, instead of hiding them (coordinated omission).
+ * For each number of threads it reports the throughput, the latency percentiles, the heap retained by the registry,
+ * the share of rejected calls and the calls allowed beyond or rejected within the exact limits of each API and client.
+ * Usage: java -cp target/benchmarks.jar com.dinuberinde.api.limiter.benchmarks.LoadHarness
+ * [max threads] [calls per second] [seconds] [trace file]
+ * Without a trace file the calls are generated with Zipf-distributed clients and APIs.
+ */
+public final class LoadHarness {
+    private final static int DEFAULT_RATE = 200_000;
+    private final static int DEFAULT_SECONDS = 10;
+    private final static int TRACE_MAX_CALLS = 100;
+    private final static long SEED = 42;
+    private final static int WARMUP_CALLS = 500_000;
+    private final static long START_DELAY = TimeUnit.MILLISECONDS.toNanos(100);
+    private final static long SPIN_THRESHOLD = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private LoadHarness() {}
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RATE;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SECONDS;
+        Trace trace = args.length > 3 ? Trace.load(Paths.get(args[3]), TRACE_MAX_CALLS) : Trace.synthetic(rate * seconds, SEED);
+
+        System.out.printf("%d calls, %d keys, %d APIs, %d calls/s%n", trace.size(), trace.keyMaxCalls.length, trace.configs.length, rate);
+        warmup(trace);
+
+        System.out.printf("%7s %12s %10s %10s %10s %10s %10s %10s %12s %12s%n",
+                "threads", "calls/s", "p50 us", "p99 us", "p999 us", "max us", "heap MB", "rejected", "over", "under");
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2) {
+            Report report = run(trace, threads, rate);
+            System.out.printf("%7d %12.0f %10.1f %10.1f %10.1f %10.1f %10.1f %9.1f%% %12d %12d%n", threads, report.throughput,
+                    report.percentile(0.5) / 1e3, report.percentile(0.99) / 1e3, report.percentile(0.999) / 1e3,
+                    report.percentile(1) / 1e3, report.heapGrowth / 1e6, report.rejected * 100, report.overAdmitted, report.underAdmitted);
+        }
+    }
+
+    /**
+     * It replays the beginning of the trace closed loop on a throwaway registry, to compile the consume path.
+     */
+    private static void warmup(Trace trace) {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(trace.configs);
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            int call = i % trace.size();
+            registry.consume(trace.apiNames[call], trace.clients[call]);
+        }
+    }
+
+    private static Report run(Trace trace, int threads, int rate) throws InterruptedException {
+        int size = trace.size();
+        long[] latencies = new long[size];
+        long[] ends = new long[threads];
+        AtomicIntegerArray allowed = new AtomicIntegerArray(trace.keyMaxCalls.length);
+
+        long heapBefore = usedHeap();
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(trace.configs);
+
+        double interval = 1e9 / rate;
+        long start = System.nanoTime() + START_DELAY;
+        CountDownLatch done = new CountDownLatch(threads);
+        // the next call of the trace, taken by the first free thread
+        AtomicInteger next = new AtomicInteger();
+        for (int thread = 0; thread < threads; thread++) {
+            int index = thread;
+            new Thread(() -> {
+                for (int call; (call = next.getAndIncrement()) < size; ) {
+                    long due = start + (long) (call * interval);
+                    waitUntil(due);
+
+                    boolean consumed = registry.consume(trace.apiNames[call], trace.clients[call]);
+                    long end = System.nanoTime();
+                    latencies[call] = end - due;
+                    if (consumed) {
+                        allowed.incrementAndGet(trace.keys[call]);
+                    }
+                }
+
+                ends[index] = System.nanoTime();
+                done.countDown();
+            }, "load-harness-" + thread).start();
+        }
+
+        done.await();
+        long elapsed = Arrays.stream(ends).max().getAsLong() - start;
+        long heapGrowth = usedHeap() - heapBefore;
+        double rejected = (double) registry.getMetrics().getRejected() / size;
+
+        // the reference model: a key allows all its calls up to its max calls, since its timeframe outlasts the run
+        int[] requested = new int[trace.keyMaxCalls.length];
+        for (int key : trace.keys) {
+            requested[key]++;
+        }
+
+        long overAdmitted = 0;
+        long underAdmitted = 0;
+        for (int key = 0; key < requested.length; key++) {
+            int expected = Math.min(requested[key], trace.keyMaxCalls[key]);
+            overAdmitted += Math.max(0, allowed.get(key) - expected);
+            underAdmitted += Math.max(0, expected - allowed.get(key));
+        }
+
+        Arrays.sort(latencies);
+        return new Report(size / (elapsed / 1e9), latencies, heapGrowth, rejected, overAdmitted, underAdmitted);
+    }
+
+    private static void waitUntil(long due) {
+        long remaining;
+        while ((remaining = due - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD);
+            }
+        }
+    }
+
+    /**
+     * It returns the heap retained after a full collection.
+     */
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static final class Report {
+        private final double throughput;
+        private final long[] sortedLatencies;
+        private final long heapGrowth;
+        private final double rejected;
+        private final long overAdmitted;
+        private final long underAdmitted;
+
+        private Report(double throughput, long[] sortedLatencies, long heapGrowth, double rejected, long overAdmitted, long underAdmitted) {
+            this.throughput = throughput;
+            this.sortedLatencies = sortedLatencies;
+            this.heapGrowth = heapGrowth;
+            this.rejected = rejected;
+            this.overAdmitted = overAdmitted;
+            this.underAdmitted = underAdmitted;
+        }
+
+        /**
+         * It returns the latency below which the given fraction of the calls completed, in nanoseconds.
+         */
+        private double percentile(double fraction) {
+            int index = (int) Math.ceil(fraction * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)];
+        }
+    }
+}
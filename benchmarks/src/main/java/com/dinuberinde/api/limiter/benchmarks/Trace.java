@@ -0,0 +1,201 @@
+package com.dinuberinde.api.limiter.benchmarks;
+
+import com.dinuberinde.api.limiter.ApiConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A trace of API calls replayed by the {@link LoadHarness}, with the configurations of its APIs.
+ * Each call belongs to a key, the API and client counted by the limiter, whose max calls are known, so that
+ * the exact number of calls to allow can be computed: the timeframes last longer than any replay,
+ * hence the reference does not depend on how the threads interleave.
+ */
+final class Trace {
+    private final static long TIMEFRAME = TimeUnit.HOURS.toMillis(1);
+    private final static int NUMBER_OF_CLIENTS = 100_000;
+    private final static int NUMBER_OF_APIS = 200;
+    private final static double CLIENTS_EXPONENT = 1.1;
+    private final static double APIS_EXPONENT = 0.8;
+    private final static int[] MAX_CALLS = { 5, 50, 500 };
+    private final static int ALL_CLIENTS_MAX_CALLS = 10_000;
+    private final static int STRIPES = 8;
+
+    final String[] apiNames;
+    final String[] clients;
+    final int[] keys;
+    final int[] keyMaxCalls;
+    final ApiConfig[] configs;
+
+    private Trace(String[] apiNames, String[] clients, int[] keys, int[] keyMaxCalls, ApiConfig[] configs) {
+        this.apiNames = apiNames;
+        this.clients = clients;
+        this.keys = keys;
+        this.keyMaxCalls = keyMaxCalls;
+        this.configs = configs;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * It generates a trace of calls of Zipf-distributed clients to Zipf-distributed APIs.
+     * Every fifth API is a root API called through a child path, every tenth API is limited for all clients
+     * as a whole with stripes, and the others for each client with max calls cycling among 5, 50 and 500.
+     * @param size the number of calls
+     * @param seed the seed of the random generator
+     * @return the trace
+     */
+    static Trace synthetic(int size, long seed) {
+        String[] clientNames = new String[NUMBER_OF_CLIENTS];
+        for (int i = 0; i < NUMBER_OF_CLIENTS; i++) {
+            clientNames[i] = "client-" + i;
+        }
+
+        String[] calledNames = new String[NUMBER_OF_APIS];
+        int[] apiMaxCalls = new int[NUMBER_OF_APIS];
+        boolean[] allClients = new boolean[NUMBER_OF_APIS];
+        ApiConfig[] configs = new ApiConfig[NUMBER_OF_APIS];
+        for (int i = 0; i < NUMBER_OF_APIS; i++) {
+            String apiName = "/load/api-" + i;
+            allClients[i] = i % 10 == 0;
+            apiMaxCalls[i] = allClients[i] ? ALL_CLIENTS_MAX_CALLS : MAX_CALLS[i % MAX_CALLS.length];
+
+            if (i % 5 == 0) {
+                calledNames[i] = apiName + "/items";
+                apiName += "/*";
+            } else {
+                calledNames[i] = apiName;
+            }
+
+            ApiConfig config = new ApiConfig(apiName, apiMaxCalls[i], TIMEFRAME);
+            configs[i] = allClients[i] ? config.withStripes(STRIPES) : config.perClient();
+        }
+
+        double[] clientsCdf = zipfCdf(NUMBER_OF_CLIENTS, CLIENTS_EXPONENT);
+        double[] apisCdf = zipfCdf(NUMBER_OF_APIS, APIS_EXPONENT);
+        SplittableRandom random = new SplittableRandom(seed);
+        Keys keys = new Keys(size);
+        String[] apiNames = new String[size];
+        String[] clients = new String[size];
+
+        for (int i = 0; i < size; i++) {
+            int api = sample(apisCdf, random);
+            int client = sample(clientsCdf, random);
+            apiNames[i] = calledNames[api];
+            clients[i] = clientNames[client];
+            keys.add(i, (long) api * (NUMBER_OF_CLIENTS + 1) + (allClients[api] ? NUMBER_OF_CLIENTS : client), apiMaxCalls[api]);
+        }
+
+        return new Trace(apiNames, clients, keys.keys, keys.maxCalls(), configs);
+    }
+
+    /**
+     * It loads a recorded trace, one call per line: the API name and the client separated by whitespace.
+     * Each API is limited for each client to the given max calls.
+     * @param file the file of the trace
+     * @param maxCalls the max calls of each client of each API
+     * @return the trace
+     * @throws IOException if the file cannot be read
+     */
+    static Trace load(Path file, int maxCalls) throws IOException {
+        List<String[]> calls = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] call = line.trim().split("\\s+");
+            if (call.length == 2) {
+                calls.add(call);
+            }
+        }
+
+        // the same strings for the same names, as in a server resolving them once
+        Map<String, Integer> apis = new LinkedHashMap<>();
+        Map<String, Integer> clientIds = new HashMap<>();
+        List<String> apiList = new ArrayList<>();
+        List<String> clientList = new ArrayList<>();
+        Keys keys = new Keys(calls.size());
+        String[] apiNames = new String[calls.size()];
+        String[] clients = new String[calls.size()];
+
+        for (int i = 0; i < calls.size(); i++) {
+            String[] call = calls.get(i);
+            int api = apis.computeIfAbsent(call[0], name -> add(apiList, name));
+            int client = clientIds.computeIfAbsent(call[1], name -> add(clientList, name));
+            apiNames[i] = apiList.get(api);
+            clients[i] = clientList.get(client);
+            keys.add(i, ((long) api << 32) | client, maxCalls);
+        }
+
+        ApiConfig[] configs = apis.keySet().stream()
+                .map(apiName -> new ApiConfig(apiName, maxCalls, TIMEFRAME).perClient())
+                .toArray(ApiConfig[]::new);
+
+        return new Trace(apiNames, clients, keys.keys, keys.maxCalls(), configs);
+    }
+
+    private static int add(List<String> names, String name) {
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    /**
+     * It computes the cumulative distribution of a Zipf distribution over n ranks.
+     */
+    private static double[] zipfCdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cdf[rank] = sum;
+        }
+
+        for (int rank = 0; rank < n; rank++) {
+            cdf[rank] /= sum;
+        }
+
+        return cdf;
+    }
+
+    private static int sample(double[] cdf, SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+
+    /**
+     * The dense numbering of the keys of the calls of a trace.
+     */
+    private static final class Keys {
+        private final int[] keys;
+        private final Map<Long, Integer> ids = new HashMap<>();
+        private final List<Integer> maxCalls = new ArrayList<>();
+
+        private Keys(int size) {
+            this.keys = new int[size];
+        }
+
+        private void add(int call, long key, int keyMaxCalls) {
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = ids.size();
+                ids.put(key, id);
+                maxCalls.add(keyMaxCalls);
+            }
+
+            keys[call] = id;
+        }
+
+        private int[] maxCalls() {
+            return maxCalls.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.dinuberinde.api.limiter;
+
+/**
+ * The algorithms that can be used to limit the API calls of a client.
+ */
+public enum Algorithm {
+
+    /**
+     * A client can make max calls within a timeframe starting at its first call.
+     * Bursts up to twice the max calls are possible across the end of a timeframe.
+     */
+    FIXED_WINDOW,
+
+    /**
+     * The sliding window counter: the calls of the current timeframe are added to the calls of the previous
+     * timeframe weighted by the part of the previous timeframe still covered by a window ending now.
+     * It avoids the bursts of the fixed window, with the same memory per client.
+     */
+    SLIDING_WINDOW,
+
+    /**
+     * The generic cell rate algorithm, equivalent to a token bucket holding up to burst calls
+     * and refilled at the rate of max calls per timeframe.
+     * The state of a client is a single theoretical arrival time.
+     */
+    GCRA
+}
@@ -0,0 +1,262 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.Immutable;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Class to configure the maximum number of calls that a client can consume in a certain timeframe for an API.
+ * The configuration can be applied to a specific client or to all clients.
+ */
+@Immutable
+public final class ApiConfig {
+    private final static int DEFAULT_MAX_CALLS = 5;
+    private final static long DEFAULT_TIMEFRAME = 10 * 1000;
+    /**
+     * A token to represent all clients.
+     */
+    public final static String ALL_CLIENTS = "*";
+    /**
+     * The value of max clients representing no limit on the number of tracked clients.
+     */
+    public final static int UNLIMITED_CLIENTS = Integer.MAX_VALUE;
+
+    private final String apiName;
+    private final String client;
+    private final int maxCalls;
+    private final long timeframe;
+    private final int maxClients;
+    private final Algorithm algorithm;
+    private final int burst;
+    private final String parent;
+    private final boolean perClient;
+    private final int stripes;
+
+    /**
+     * Configuration of the API to make max calls in a given timeframe on behalf of a client.
+     * @param apiName the api name. Should end with * if intended as a root api
+     * @param maxCalls the max calls allowed in a given timeframe
+     * @param timeframe the timeframe in which a client can consume API calls, in seconds
+     * @param client the client name or * if intended for all clients
+     */
+    public ApiConfig(String apiName, int maxCalls, long timeframe, String client) {
+        this(apiName, maxCalls, timeframe, client, UNLIMITED_CLIENTS, Algorithm.FIXED_WINDOW, maxCalls, null, false, 1);
+    }
+
+    private ApiConfig(String apiName, int maxCalls, long timeframe, String client, int maxClients, Algorithm algorithm, int burst, String parent,
+                      boolean perClient, int stripes) {
+        this.apiName = apiName;
+        this.maxCalls = maxCalls;
+        this.timeframe = timeframe;
+        this.client = client;
+        this.maxClients = maxClients;
+        this.algorithm = algorithm;
+        this.burst = burst;
+        this.parent = parent;
+        this.perClient = perClient;
+        this.stripes = stripes;
+    }
+
+    /**
+     * Configuration of the API to make max calls in a given timeframe on behalf of all clients.
+     * @param apiName the api name. Should end with * if intended as a root api
+     * @param maxCalls the max calls allowed in a given timeframe
+     * @param timeframe the timeframe in which a client can consume API calls, in seconds.
+     */
+    public ApiConfig(String apiName, int maxCalls, long timeframe) {
+        this(apiName, maxCalls, timeframe, ALL_CLIENTS);
+    }
+
+    /**
+     * Configuration of the Api.
+     * The default configuration allows 5 calls to all clients in a timeframe of 10 seconds.
+     * @param apiName the api name. Should end with * if intended as a root api
+     */
+    public ApiConfig(String apiName) {
+        this(apiName, DEFAULT_MAX_CALLS, DEFAULT_TIMEFRAME);
+    }
+
+    /**
+     * Configuration of the Api.
+     * The default configuration allows 5 calls to a client in a timeframe of 10 seconds.
+     * @param apiName the api name. Should end with * if intended as a root api
+     * @param client the token
+     */
+    public ApiConfig(String apiName, String client) {
+        this(apiName, DEFAULT_MAX_CALLS, DEFAULT_TIMEFRAME, client);
+    }
+
+    public String getApiName() {
+        return apiName;
+    }
+
+    public int getMaxCalls() {
+        return maxCalls;
+    }
+
+    public long getTimeFrame() {
+        return timeframe;
+    }
+
+    public String getClient() {
+        return client;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    /**
+     * It returns a copy of this configuration which tracks at most the given number of clients at the same time.
+     * Clients whose timeframe expired are not counted, while new clients exceeding the limit are rejected.
+     * @param maxClients the max number of tracked clients
+     * @return the new configuration
+     */
+    public ApiConfig withMaxClients(int maxClients) {
+        if (maxClients <= 0) {
+            throw new ApiLimiterException("Max clients must be positive");
+        }
+
+        return new ApiConfig(apiName, maxCalls, timeframe, client, maxClients, algorithm, burst, parent, perClient, stripes);
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * It returns a copy of this configuration which limits the API calls with the given algorithm.
+     * @param algorithm the algorithm
+     * @return the new configuration
+     */
+    public ApiConfig withAlgorithm(Algorithm algorithm) {
+        if (algorithm == null) {
+            throw new ApiLimiterException("Algorithm cannot be null");
+        }
+
+        return new ApiConfig(apiName, maxCalls, timeframe, client, maxClients, algorithm, burst, parent, perClient, stripes);
+    }
+
+    /**
+     * It returns a copy of this configuration which allows the given number of calls at once
+     * to a client that did not call the API recently. It applies to {@link Algorithm#GCRA}, whose
+     * burst defaults to the max calls.
+     * @param burst the burst
+     * @return the new configuration
+     */
+    public ApiConfig withBurst(int burst) {
+        if (burst <= 0) {
+            throw new ApiLimiterException("Burst must be positive");
+        }
+
+        return new ApiConfig(apiName, maxCalls, timeframe, client, maxClients, algorithm, burst, parent, perClient, stripes);
+    }
+
+    public String getParent() {
+        return parent;
+    }
+
+    /**
+     * It returns a copy of this configuration whose calls are also charged to the API configured for all clients
+     * with the given name, and to its own parent, if any. A call is allowed only if this API and all its parents allow it,
+     * otherwise the calls charged so far are released. The parent can be the same API, so that its clients configured
+     * one by one are also limited as a whole, or a root API.
+     * @param parent the name of the parent API, ending with * for a root API
+     * @return the new configuration
+     */
+    public ApiConfig withParent(String parent) {
+        if (parent == null) {
+            throw new ApiLimiterException("Parent API name cannot be null");
+        }
+
+        return new ApiConfig(apiName, maxCalls, timeframe, client, maxClients, algorithm, burst, parent, perClient, stripes);
+    }
+
+    public boolean isPerClient() {
+        return perClient;
+    }
+
+    /**
+     * It returns a copy of this configuration for all clients which limits each client separately,
+     * as if the API was configured for every client with the same max calls and timeframe.
+     * The state of a client is created on its first call and reclaimed once its timeframe expired,
+     * see also {@link #withMaxClients(int)}. An API cannot be limited both for all clients and per client,
+     * hence the clients of a per-client API are capped as a whole through a root API, see {@link #withParent(String)}.
+     * @return the new configuration
+     * @throws ApiLimiterException if the configuration is not for all clients, or it uses stripes
+     */
+    public ApiConfig perClient() {
+        if (!ALL_CLIENTS.equals(client)) {
+            throw new ApiLimiterException(String.format("API %s must be configured for all clients to limit each client", apiName));
+        } else if (stripes > 1) {
+            throw new ApiLimiterException(String.format("API %s cannot limit each client with stripes", apiName));
+        }
+
+        return new ApiConfig(apiName, maxCalls, timeframe, client, maxClients, algorithm, burst, parent, true, stripes);
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    /**
+     * It returns a copy of this configuration for all clients as a whole which splits the max calls among the given
+     * number of stripes, so that concurrent threads mostly update different states. A thread consumes from its own stripe
+     * first and borrows from the other stripes when it runs dry: the calls never exceed the max calls, while some calls
+     * may be rejected if the calls left are spread among several stripes. It applies to the states kept in the heap.
+     * @param stripes the number of stripes, at most the max calls
+     * @return the new configuration
+     * @throws ApiLimiterException if the configuration is not for all clients as a whole, or the stripes are not valid
+     */
+    public ApiConfig withStripes(int stripes) {
+        if (!ALL_CLIENTS.equals(client) || perClient) {
+            throw new ApiLimiterException(String.format("API %s must be configured for all clients as a whole to use stripes", apiName));
+        } else if (stripes <= 0 || stripes > maxCalls) {
+            throw new ApiLimiterException(String.format("Stripes of API %s must be between 1 and the max calls", apiName));
+        }
+
+        return new ApiConfig(apiName, maxCalls, timeframe, client, maxClients, algorithm, burst, parent, perClient, stripes);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        } else if (!(other instanceof ApiConfig)) {
+            return false;
+        }
+
+        ApiConfig that = (ApiConfig) other;
+        return maxCalls == that.maxCalls && timeframe == that.timeframe && maxClients == that.maxClients && burst == that.burst
+                && Objects.equals(apiName, that.apiName) && Objects.equals(client, that.client) && algorithm == that.algorithm
+                && Objects.equals(parent, that.parent) && perClient == that.perClient && stripes == that.stripes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(apiName, client, maxCalls, timeframe, maxClients, algorithm, burst, parent, perClient, stripes);
+    }
+
+    /**
+     * Helper method to build an array of {@link ApiConfig} for the given clients.
+     * @param apiName the api name. Should end with * if intended as a root api
+     * @param maxCalls the max calls allowed in a given timeframe
+     * @param timeframe the timeframe in which a client can consume API calls, in seconds
+     * @param clients the clients
+     * @return an array of {@link ApiConfig}
+     */
+    public static ApiConfig[] of(String apiName, int maxCalls, long timeframe, String... clients) {
+        if (clients == null) {
+            throw new ApiLimiterException("Clients cannot be null");
+        }
+
+        return Arrays.stream(clients)
+                .map(client -> new ApiConfig(apiName, maxCalls, timeframe, client))
+                .toArray(ApiConfig[]::new);
+    }
+}
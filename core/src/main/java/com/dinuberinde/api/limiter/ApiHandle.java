@@ -0,0 +1,205 @@
+package com.dinuberinde.api.limiter;
+
+import com.dinuberinde.api.limiter.internal.Limiter;
+import com.dinuberinde.api.limiter.internal.Registry;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An API and a client resolved once by {@link ApiLimiterRegistry#handle(String, String)}, to consume API calls
+ * without looking up the API and the client on each call. The handle stays valid when APIs are registered:
+ * it is resolved again on its first use after a registration.
+ */
+@ThreadSafe
+public final class ApiHandle {
+    /**
+     * The max jitter added to the time to wait, as a fraction of it and in milliseconds.
+     */
+    private final static long JITTER_FRACTION = 8;
+    private final static long MAX_JITTER = 10;
+
+    private final ApiLimiterRegistry registry;
+    private final String apiName;
+    private final String client;
+    private volatile Target target;
+
+    ApiHandle(ApiLimiterRegistry registry, String apiName, String client) {
+        this.registry = registry;
+        this.apiName = apiName;
+        this.client = client;
+        this.target = resolve();
+    }
+
+    public String getApiName() {
+        return apiName;
+    }
+
+    public String getClient() {
+        return client;
+    }
+
+    /**
+     * It consumes an API call.
+     * @return true if consumed successfully, false if the current API call exceeds
+     * the configured API maximum calls within the configured API timeframe
+     * @throws ApiLimiterException if the API or the client are not registered anymore
+     */
+    public boolean consume() {
+        return consume(1);
+    }
+
+    /**
+     * It consumes some API calls at once: either all of them or none.
+     * @param permits the number of calls
+     * @return true if consumed successfully, false if the current API calls exceed
+     * the configured API maximum calls within the configured API timeframe
+     * @throws ApiLimiterException if the API or the client are not registered anymore, or permits are not positive
+     */
+    public boolean consume(int permits) {
+        ApiLimiterRegistry.checkPermits(permits);
+        return binding().consume(permits);
+    }
+
+    /**
+     * It consumes some API calls at once, waiting until they can be consumed or the timeout expires.
+     * It gives up immediately if the calls could not be consumed before the timeout, measured by the clock of the API.
+     * @param permits the number of calls
+     * @param timeout the max time to wait
+     * @param unit the unit of the timeout
+     * @return true if consumed successfully, false if the calls could not be consumed within the timeout
+     * @throws ApiLimiterException if the API or the client are not registered anymore, or permits are not positive
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean acquire(int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        ApiLimiterRegistry.checkPermits(permits);
+        long deadline = deadline(binding(), timeout, unit);
+
+        while (true) {
+            Limiter.Binding binding = binding();
+            long waitNanos = waitNanos(binding, permits, deadline);
+            if (waitNanos <= 0) {
+                return waitNanos == 0;
+            }
+
+            LockSupport.parkNanos(this, waitNanos);
+            if (Thread.interrupted()) {
+                binding.reject();
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * It consumes some API calls at once, without blocking the current thread while waiting
+     * until they can be consumed or the timeout expires. The returned future is completed by the current thread
+     * if the calls are consumed immediately, and by a shared scheduler thread otherwise:
+     * dependent actions that do not complete quickly should run on another executor.
+     * @param permits the number of calls
+     * @param timeout the max time to wait
+     * @param unit the unit of the timeout
+     * @return the future result: true if consumed successfully, false if the calls could not be consumed within the timeout.
+     * It completes exceptionally with {@link ApiLimiterException} if the API or the client are not registered anymore
+     * @throws ApiLimiterException if permits are not positive
+     */
+    public CompletableFuture<Boolean> acquireAsync(int permits, long timeout, TimeUnit unit) {
+        ApiLimiterRegistry.checkPermits(permits);
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        try {
+            acquireAsync(permits, deadline(binding(), timeout, unit), result);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
+
+    private void acquireAsync(int permits, long deadline, CompletableFuture<Boolean> result) {
+        try {
+            long waitNanos = waitNanos(binding(), permits, deadline);
+            if (waitNanos <= 0) {
+                result.complete(waitNanos == 0);
+            } else {
+                Waiters.scheduler().schedule(() -> acquireAsync(permits, deadline, result), waitNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * It returns the time when waiting ends, measured by the clock of the limiter of the client,
+     * the same clock which measures the time to wait for the calls.
+     * @param binding the binding of the client
+     * @param timeout the max time to wait
+     * @param unit the unit of the timeout
+     * @return the deadline in milliseconds
+     */
+    private static long deadline(Limiter.Binding binding, long timeout, TimeUnit unit) {
+        long now = binding.getLimiter().getClock().millis();
+        long timeoutMillis = unit.toMillis(timeout);
+        return timeoutMillis > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeoutMillis;
+    }
+
+    /**
+     * It tries to consume some API calls and returns the time to wait before trying again.
+     * The time to wait is spread by a random jitter, so that the waiters of the same window do not all retry at once.
+     * @param binding the binding of the client
+     * @param permits the number of calls
+     * @param deadline the time when waiting ends, as given by the clock of the limiter
+     * @return 0 if consumed successfully, the time to wait in nanoseconds if the calls could be consumed
+     * before the deadline, a negative value otherwise
+     */
+    private static long waitNanos(Limiter.Binding binding, int permits, long deadline) {
+        long waitTime = binding.consumeOrWait(permits);
+        if (waitTime == 0) {
+            return 0;
+        }
+
+        long remaining = deadline - binding.getLimiter().getClock().millis();
+        if (waitTime == Limiter.NEVER || waitTime > remaining) {
+            binding.reject();
+            return -1;
+        }
+
+        long jitter = ThreadLocalRandom.current().nextLong(Math.min(waitTime / JITTER_FRACTION, MAX_JITTER) + 1);
+        return TimeUnit.MILLISECONDS.toNanos(Math.min(waitTime + jitter, remaining));
+    }
+
+    /**
+     * It returns the binding of the client, resolving the API again if APIs were registered after the last call.
+     * @return the binding
+     */
+    private Limiter.Binding binding() {
+        Target target = this.target;
+        if (target.registry != registry.getRegistry()) {
+            this.target = target = resolve();
+        }
+
+        return target.binding;
+    }
+
+    private Target resolve() {
+        Registry registry = this.registry.getRegistry();
+        Limiter limiter = this.registry.resolve(registry, apiName, client);
+        return new Target(registry, limiter.bind(limiter.clientOf(client)));
+    }
+
+    /**
+     * The limiter of the handle, bound in a given snapshot of the registry.
+     */
+    @Immutable
+    private static final class Target {
+        private final Registry registry;
+        private final Limiter.Binding binding;
+
+        private Target(Registry registry, Limiter.Binding binding) {
+            this.registry = registry;
+            this.binding = binding;
+        }
+    }
+}
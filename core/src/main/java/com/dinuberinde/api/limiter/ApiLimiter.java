@@ -0,0 +1,373 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class to consume API calls on behalf of a client and
+ * to limit the API calls that a client can consume within a certain timeframe.
+ * It uses a process-wide default {@link ApiLimiterRegistry}: independent registries
+ * can be created with {@link ApiLimiterRegistry#builder()}.
+ */
+@ThreadSafe
+public final class ApiLimiter {
+    private final static ApiLimiterRegistry INSTANCE = ApiLimiterRegistry.builder().build();
+
+    private ApiLimiter() {}
+
+    /**
+     * It returns the default registry, used by the static methods of this class.
+     * @return the default registry
+     */
+    public static ApiLimiterRegistry getDefault() {
+        return INSTANCE;
+    }
+
+    /**
+     * It sets the clock of the APIs registered afterwards. By default the clock is {@link Clock#monotonic()}.
+     * @param clock the clock
+     */
+    public static void setClock(Clock clock) {
+        INSTANCE.setClock(clock);
+    }
+
+    /**
+     * It registers the APIs to limit.
+     * The registered APIs are published atomically, without blocking the consumers.
+     * @param apis the apis
+     */
+    public static void registerApis(ApiConfig... apis) {
+        INSTANCE.registerApis(apis);
+    }
+
+    /**
+     * It replaces all the registered APIs with the given ones, atomically, keeping the calls of the clients
+     * of the APIs whose algorithm and timeframe did not change.
+     * @param apis the apis
+     * @see ApiLimiterRegistry#reconfigure(ApiConfig...)
+     */
+    public static void reconfigure(ApiConfig... apis) {
+        INSTANCE.reconfigure(apis);
+    }
+
+    /**
+     * It unregisters some APIs for all their clients, atomically.
+     * @param apiNames the names of the APIs, ending with * for root APIs
+     */
+    public static void unregisterApis(String... apiNames) {
+        INSTANCE.unregisterApis(apiNames);
+    }
+
+    /**
+     * It returns the name of configured APIs.
+     * @return the list with the names of the APIs
+     */
+    public static List<String> getConfiguredApisName() {
+        return INSTANCE.getConfiguredApisName();
+    }
+
+    /**
+     * It checks whether an api is configured.
+     * @param apiName the api name
+     * @return true if the api is configured, false otherwise
+     */
+    public static boolean isApiConfigured(String apiName) {
+        return INSTANCE.isApiConfigured(apiName);
+    }
+
+    /**
+     * It returns a snapshot of the decisions taken for the registered APIs.
+     * @return the metrics
+     */
+    public static ApiLimiterMetrics getMetrics() {
+        return INSTANCE.getMetrics();
+    }
+
+    /**
+     * It samples the latency of the consume calls, reported by {@link ApiLimiterMetrics#getLatencyHistogram()}.
+     * Sampling is disabled by default.
+     * @param rate the average number of consume calls per sampled call, or 0 to disable sampling
+     */
+    public static void setLatencySampling(int rate) {
+        INSTANCE.setLatencySampling(rate);
+    }
+
+    /**
+     * It sets the policy of the consume methods for the calls of unknown APIs and clients without a fallback API.
+     * The policy is {@link UnknownPolicy#THROW} by default.
+     * @param policy the policy
+     */
+    public static void setUnknownPolicy(UnknownPolicy policy) {
+        INSTANCE.setUnknownPolicy(policy);
+    }
+
+    /**
+     * It sets the API whose limiter consumes the calls of unknown APIs and clients, before applying the policy
+     * for unknown APIs and clients. There is no fallback API by default.
+     * @param apiName the api name, or null to remove the fallback API
+     */
+    public static void setFallbackApi(String apiName) {
+        INSTANCE.setFallbackApi(apiName);
+    }
+
+    /**
+     * It registers the {@link ApiLimiterMXBean} in the platform MBean server with the name {@link ApiLimiterMXBean#OBJECT_NAME},
+     * unless it is already registered.
+     * @throws ApiLimiterException if the MBean cannot be registered
+     */
+    public static void registerMBean() {
+        INSTANCE.registerMBean(ApiLimiterMXBean.OBJECT_NAME);
+    }
+
+    /**
+     * It writes a snapshot of the clients of the registered APIs that are not idle, without pausing the consume calls.
+     * @param out the output, not closed
+     * @throws ApiLimiterException if the output fails
+     * @see ApiLimiterRegistry#writeSnapshot(OutputStream)
+     */
+    public static void writeSnapshot(OutputStream out) {
+        INSTANCE.writeSnapshot(out);
+    }
+
+    /**
+     * It restores a snapshot in the registered APIs, skipping the clients that became idle meanwhile.
+     * @param in the input, not closed
+     * @return the number of restored clients
+     * @throws ApiLimiterException if the input fails or it is not a snapshot
+     * @see ApiLimiterRegistry#readSnapshot(InputStream)
+     */
+    public static int readSnapshot(InputStream in) {
+        return INSTANCE.readSnapshot(in);
+    }
+
+    /**
+     * It writes a snapshot to a file, replacing it atomically.
+     * @param file the file
+     * @throws ApiLimiterException if the file cannot be written
+     */
+    public static void saveSnapshot(Path file) {
+        INSTANCE.saveSnapshot(file);
+    }
+
+    /**
+     * It restores a snapshot from a file, if it exists.
+     * @param file the file
+     * @return the number of restored clients, 0 if the file does not exist
+     * @throws ApiLimiterException if the file cannot be read or it is not a snapshot
+     */
+    public static int loadSnapshot(Path file) {
+        return INSTANCE.loadSnapshot(file);
+    }
+
+    /**
+     * It saves a snapshot to a file periodically, on a shared daemon thread.
+     * @param file the file
+     * @param period the time between two snapshots, in milliseconds
+     * @return the future of the periodic snapshots, to cancel them
+     */
+    public static ScheduledFuture<?> scheduleSnapshots(Path file, long period) {
+        return INSTANCE.scheduleSnapshots(file, period);
+    }
+
+    /**
+     * It saves a snapshot to a file when the JVM shuts down.
+     * @param file the file
+     */
+    public static void saveSnapshotOnShutdown(Path file) {
+        INSTANCE.saveSnapshotOnShutdown(file);
+    }
+
+    /**
+     * It consumes an API.
+     * @param apiName the api name
+     * @return true if consumed successfully, false if the current API call exceeds
+     * the configured API maximum calls in the configured API timeframe
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found
+     */
+    public static boolean consume(String apiName) {
+        return INSTANCE.consume(apiName);
+    }
+
+    /**
+     * It consumes an API on behalf of a specific client.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @return true if consumed successfully, false if the current API call exceeds
+     * the configured API maximum calls within the configured API timeframe
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found
+     */
+    public static boolean consume(String apiName, String client) {
+        return INSTANCE.consume(apiName, client);
+    }
+
+    /**
+     * It consumes some calls of an API at once on behalf of a specific client: either all of them or none.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param permits the number of calls
+     * @return true if consumed successfully, false if the current API calls exceed
+     * the configured API maximum calls within the configured API timeframe
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found,
+     * or permits are not positive
+     */
+    public static boolean consume(String apiName, String client, int permits) {
+        return INSTANCE.consume(apiName, client, permits);
+    }
+
+    /**
+     * It consumes some calls of an API at once on behalf of a specific client: either all of them or none,
+     * describing the outcome and the quota left to the client in a result, which can be reused across calls.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param permits the number of calls
+     * @param result the result to fill
+     * @return true if consumed successfully, false if the current API calls exceed
+     * the configured API maximum calls within the configured API timeframe
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found,
+     * or permits are not positive
+     */
+    public static boolean consume(String apiName, String client, int permits, ConsumeResult result) {
+        return INSTANCE.consume(apiName, client, permits, result);
+    }
+
+    /**
+     * It consumes an API on behalf of a specific client, reporting unknown APIs and clients with a status
+     * instead of an exception, regardless of the policy for unknown APIs and clients.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @return the status
+     */
+    public static ConsumeStatus tryConsume(String apiName, String client) {
+        return INSTANCE.tryConsume(apiName, client);
+    }
+
+    /**
+     * It consumes some calls of an API at once on behalf of a specific client: either all of them or none,
+     * reporting unknown APIs and clients with a status instead of an exception, regardless of the policy
+     * for unknown APIs and clients.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param permits the number of calls
+     * @return the status
+     * @throws ApiLimiterException if permits are not positive
+     */
+    public static ConsumeStatus tryConsume(String apiName, String client, int permits) {
+        return INSTANCE.tryConsume(apiName, client, permits);
+    }
+
+    /**
+     * It describes whether a call of an API could be consumed now on behalf of a specific client and the quota
+     * left to the client, without consuming it.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param result the result to fill
+     * @return the result
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found
+     */
+    public static ConsumeResult peek(String apiName, String client, ConsumeResult result) {
+        return INSTANCE.peek(apiName, client, result);
+    }
+
+    /**
+     * It consumes an API on behalf of a specific client, waiting until it can be consumed or the timeout expires.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param timeout the max time to wait
+     * @param unit the unit of the timeout
+     * @return true if consumed successfully, false if the API call could not be consumed within the timeout
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public static boolean acquire(String apiName, String client, long timeout, TimeUnit unit) throws InterruptedException {
+        return INSTANCE.acquire(apiName, client, 1, timeout, unit);
+    }
+
+    /**
+     * It consumes some calls of an API at once on behalf of a specific client, waiting until they can be consumed
+     * or the timeout expires. It gives up immediately if the calls could not be consumed before the timeout.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param permits the number of calls
+     * @param timeout the max time to wait
+     * @param unit the unit of the timeout
+     * @return true if consumed successfully, false if the calls could not be consumed within the timeout
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found,
+     * or permits are not positive
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public static boolean acquire(String apiName, String client, int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        return INSTANCE.acquire(apiName, client, permits, timeout, unit);
+    }
+
+    /**
+     * It consumes an API on behalf of a specific client without blocking the current thread
+     * while waiting until it can be consumed or the timeout expires.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param timeout the max time to wait
+     * @param unit the unit of the timeout
+     * @return the future result: true if consumed successfully, false if the API call could not be consumed within the timeout
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found
+     * @see ApiHandle#acquireAsync(int, long, TimeUnit)
+     */
+    public static CompletableFuture<Boolean> acquireAsync(String apiName, String client, long timeout, TimeUnit unit) {
+        return INSTANCE.acquireAsync(apiName, client, 1, timeout, unit);
+    }
+
+    /**
+     * It consumes some calls of an API at once on behalf of a specific client without blocking the current thread
+     * while waiting until they can be consumed or the timeout expires.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param permits the number of calls
+     * @param timeout the max time to wait
+     * @param unit the unit of the timeout
+     * @return the future result: true if consumed successfully, false if the calls could not be consumed within the timeout
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found,
+     * or permits are not positive
+     * @see ApiHandle#acquireAsync(int, long, TimeUnit)
+     */
+    public static CompletableFuture<Boolean> acquireAsync(String apiName, String client, int permits, long timeout, TimeUnit unit) {
+        return INSTANCE.acquireAsync(apiName, client, permits, timeout, unit);
+    }
+
+    /**
+     * It resolves an API for a client once, returning a handle to consume API calls without looking them up again.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @return the handle
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found
+     */
+    public static ApiHandle handle(String apiName, String client) {
+        return INSTANCE.handle(apiName, client);
+    }
+
+    /**
+     * It resolves an API configured for all clients once, returning a handle to consume API calls without looking it up again.
+     * @param apiName the api name
+     * @return the handle
+     * @throws ApiLimiterException if api name is null or not registered
+     */
+    public static ApiHandle handle(String apiName) {
+        return INSTANCE.handle(apiName);
+    }
+
+    /**
+     * It consumes calls of APIs in bulk. Each request is consumed either entirely or not at all,
+     * and the requests resolved to the same API and client are evaluated in order with a single update.
+     * @param requests the requests
+     * @return the result of each request: true if consumed successfully, false otherwise
+     * @throws ApiLimiterException if any api name is null or not registered, or any client is null or not found,
+     * or any permits are not positive. In that case no request is consumed
+     */
+    public static boolean[] consumeAll(List<ConsumeRequest> requests) {
+        return INSTANCE.consumeAll(requests);
+    }
+}
@@ -0,0 +1,38 @@
+package com.dinuberinde.api.limiter;
+
+import java.util.Map;
+
+/**
+ * The management interface of an {@link ApiLimiterRegistry}, registered by {@link ApiLimiterRegistry#registerMBean(String)}.
+ */
+public interface ApiLimiterMXBean {
+
+    /**
+     * The object name of the MBean of the default registry, registered by {@link ApiLimiter#registerMBean()}.
+     */
+    String OBJECT_NAME = "com.dinuberinde.api.limiter:type=ApiLimiter";
+
+    long getAllowed();
+
+    long getRejected();
+
+    long getUnknownClients();
+
+    long getUnknownApis();
+
+    Map<String, Long> getAllowedByApi();
+
+    Map<String, Long> getRejectedByApi();
+
+    Map<String, Long> getUnknownClientsByApi();
+
+    long getOffHeapBytes();
+
+    Map<String, Long> getOffHeapBytesByApi();
+
+    long getLatencyP50Nanos();
+
+    long getLatencyP99Nanos();
+
+    long getLatencyP999Nanos();
+}
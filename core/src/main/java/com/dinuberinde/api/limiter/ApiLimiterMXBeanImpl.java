@@ -0,0 +1,82 @@
+package com.dinuberinde.api.limiter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * The MBean of an {@link ApiLimiterRegistry}, reading a new snapshot of its metrics on each attribute.
+ */
+final class ApiLimiterMXBeanImpl implements ApiLimiterMXBean {
+    private final ApiLimiterRegistry registry;
+
+    ApiLimiterMXBeanImpl(ApiLimiterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public long getAllowed() {
+        return registry.getMetrics().getAllowed();
+    }
+
+    @Override
+    public long getRejected() {
+        return registry.getMetrics().getRejected();
+    }
+
+    @Override
+    public long getUnknownClients() {
+        return registry.getMetrics().getUnknownClients();
+    }
+
+    @Override
+    public long getUnknownApis() {
+        return registry.getMetrics().getUnknownApis();
+    }
+
+    @Override
+    public Map<String, Long> getAllowedByApi() {
+        return byApi(ApiMetrics::getAllowed);
+    }
+
+    @Override
+    public Map<String, Long> getRejectedByApi() {
+        return byApi(ApiMetrics::getRejected);
+    }
+
+    @Override
+    public Map<String, Long> getUnknownClientsByApi() {
+        return byApi(ApiMetrics::getUnknownClients);
+    }
+
+    @Override
+    public long getOffHeapBytes() {
+        return registry.getMetrics().getOffHeapBytes();
+    }
+
+    @Override
+    public Map<String, Long> getOffHeapBytesByApi() {
+        return byApi(ApiMetrics::getOffHeapBytes);
+    }
+
+    @Override
+    public long getLatencyP50Nanos() {
+        return registry.getMetrics().getLatencyPercentile(50);
+    }
+
+    @Override
+    public long getLatencyP99Nanos() {
+        return registry.getMetrics().getLatencyPercentile(99);
+    }
+
+    @Override
+    public long getLatencyP999Nanos() {
+        return registry.getMetrics().getLatencyPercentile(99.9);
+    }
+
+    private Map<String, Long> byApi(ToLongFunction<ApiMetrics> metric) {
+        Map<String, Long> byApi = new TreeMap<>();
+        registry.getMetrics().getApis().forEach((apiName, metrics) -> byApi.put(apiName, metric.applyAsLong(metrics)));
+        return byApi;
+    }
+}
@@ -0,0 +1,110 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.Immutable;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A snapshot of the decisions taken by an {@link ApiLimiterRegistry}, with the sampled latencies of its consume calls.
+ */
+@Immutable
+public final class ApiLimiterMetrics {
+    private final Map<String, ApiMetrics> apis;
+    private final long unknownApis;
+    private final long[] latencyHistogram;
+
+    ApiLimiterMetrics(Map<String, ApiMetrics> apis, long unknownApis, long[] latencyHistogram) {
+        this.apis = Collections.unmodifiableMap(apis);
+        this.unknownApis = unknownApis;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    /**
+     * It returns the metrics of the registered APIs.
+     * @return the metrics by api name
+     */
+    public Map<String, ApiMetrics> getApis() {
+        return apis;
+    }
+
+    /**
+     * It returns the number of allowed calls of all APIs.
+     * @return the number of calls
+     */
+    public long getAllowed() {
+        return apis.values().stream().mapToLong(ApiMetrics::getAllowed).sum();
+    }
+
+    /**
+     * It returns the number of rejected calls of all APIs.
+     * @return the number of calls
+     */
+    public long getRejected() {
+        return apis.values().stream().mapToLong(ApiMetrics::getRejected).sum();
+    }
+
+    /**
+     * It returns the number of calls of all APIs on behalf of clients not configured for the API.
+     * @return the number of calls
+     */
+    public long getUnknownClients() {
+        return apis.values().stream().mapToLong(ApiMetrics::getUnknownClients).sum();
+    }
+
+    /**
+     * It returns the memory used by the slot tables of all the APIs, outside of the heap.
+     * @return the number of bytes
+     */
+    public long getOffHeapBytes() {
+        return apis.values().stream().mapToLong(ApiMetrics::getOffHeapBytes).sum();
+    }
+
+    /**
+     * It returns the number of calls of APIs not registered.
+     * @return the number of calls
+     */
+    public long getUnknownApis() {
+        return unknownApis;
+    }
+
+    /**
+     * It returns the histogram of the sampled latencies of the consume calls: the element i
+     * is the number of latencies between 2^i and 2^(i+1) nanoseconds.
+     * @return the histogram
+     */
+    public long[] getLatencyHistogram() {
+        return latencyHistogram.clone();
+    }
+
+    /**
+     * It returns an upper bound of a percentile of the sampled latencies of the consume calls.
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound in nanoseconds, or 0 if no latency was sampled
+     */
+    public long getLatencyPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new ApiLimiterException("Percentile must be between 0 and 100");
+        }
+
+        long total = 0;
+        for (long count : latencyHistogram) {
+            total += count;
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < latencyHistogram.length; i++) {
+            seen += latencyHistogram[i];
+            if (seen >= rank && seen > 0) {
+                return (1L << (i + 1)) - 1;
+            }
+        }
+
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,965 @@
+package com.dinuberinde.api.limiter;
+
+import com.dinuberinde.api.limiter.internal.ClientLimiters;
+import com.dinuberinde.api.limiter.internal.LatencyHistogram;
+import com.dinuberinde.api.limiter.internal.Limiter;
+import com.dinuberinde.api.limiter.internal.Registry;
+import com.dinuberinde.api.limiter.internal.SlotTable;
+import net.jcip.annotations.ThreadSafe;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An independent registry of APIs to consume API calls on behalf of a client and
+ * to limit the API calls that a client can consume within a certain timeframe.
+ * Each registry has its own APIs, clock and metrics. The static methods of {@link ApiLimiter}
+ * use the default registry.
+ */
+@ThreadSafe
+public final class ApiLimiterRegistry {
+    private final static int SNAPSHOT_MAGIC = 0x41504C53; // APLS
+    private final static int SNAPSHOT_VERSION = 1;
+    private final static int SNAPSHOT_BUFFER = 1 << 16;
+
+    private volatile Registry registry = Registry.EMPTY;
+    private volatile Clock clock;
+    private final Clock wallClock;
+    private volatile int latencySampling;
+    private volatile UnknownPolicy unknownPolicy;
+    private volatile String fallbackApi;
+    private final StateStore store;
+    private final long storeTimeout;
+    private final Path sharedMemory;
+    private final int slots;
+    private final boolean offHeap;
+    private final LongAdder unknownApis = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    private ApiLimiterRegistry(Builder builder) {
+        this.clock = builder.clock != null ? builder.clock : builder.sharedMemory != null ? Clock.system() : Clock.monotonic();
+        this.wallClock = builder.wallClock;
+        this.latencySampling = builder.latencySampling;
+        this.unknownPolicy = builder.unknownPolicy;
+        this.fallbackApi = builder.fallbackApi;
+        this.store = builder.store;
+        this.storeTimeout = builder.storeTimeout;
+        this.sharedMemory = builder.sharedMemory;
+        this.slots = builder.slots;
+        this.offHeap = builder.offHeap;
+    }
+
+    /**
+     * It creates a builder of registries.
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * It sets the clock of the APIs registered afterwards.
+     * @param clock the clock
+     */
+    public void setClock(Clock clock) {
+        if (clock == null) {
+            throw new ApiLimiterException("Clock cannot be null");
+        }
+
+        this.clock = clock;
+    }
+
+    /**
+     * It registers the APIs to limit. An API already registered for the same client is replaced by a new limiter,
+     * without the calls of its clients: see {@link #reconfigure(ApiConfig...)} to keep them.
+     * The registered APIs are published atomically, without blocking the consumers.
+     * @param apis the apis
+     * @throws ApiLimiterException if the registry has a state store and an API does not use the fixed window algorithm,
+     * or the shared memory of an API cannot be mapped, or the parent of an API is not registered for all clients
+     * or the parents form a cycle, or an API is limited both for all clients and per client
+     */
+    public void registerApis(ApiConfig... apis) {
+        synchronized (this) {
+            Clock clock = this.clock;
+            registry = registry.register(api -> new Limiter(api, clock, store, storeTimeout, table(api, clock)), apis);
+        }
+    }
+
+    /**
+     * It replaces all the registered APIs with the given ones, atomically. APIs not given are unregistered,
+     * APIs registered for the same client with the same configuration keep their limiter, and changed APIs
+     * carry over the calls of their clients if they keep their algorithm and timeframe.
+     * Consumers keep using the previous APIs without blocking until the new ones are published.
+     * @param apis the apis
+     * @throws ApiLimiterException if the registry has a state store and an API does not use the fixed window algorithm,
+     * or the shared memory of an API cannot be mapped, or the parent of an API is not registered for all clients
+     * or the parents form a cycle, or an API is limited both for all clients and per client
+     */
+    public void reconfigure(ApiConfig... apis) {
+        synchronized (this) {
+            Clock clock = this.clock;
+            registry = registry.reconfigure(api -> new Limiter(api, clock, store, storeTimeout, table(api, clock)), apis);
+        }
+    }
+
+    /**
+     * It unregisters some APIs for all their clients, atomically.
+     * Consumers keep using the previous APIs without blocking until the change is published.
+     * @param apiNames the names of the APIs, ending with * for root APIs
+     * @throws ApiLimiterException if an API is the parent of an API which is not unregistered
+     */
+    public void unregisterApis(String... apiNames) {
+        synchronized (this) {
+            registry = registry.unregister(apiNames);
+        }
+    }
+
+    private SlotTable table(ApiConfig api, Clock clock) {
+        if (sharedMemory != null) {
+            return SlotTable.mapped(sharedMemory, api, slots, clock);
+        } else if (offHeap) {
+            return SlotTable.direct(slots, clock);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * It returns the name of configured APIs.
+     * @return the list with the names of the APIs
+     */
+    public List<String> getConfiguredApisName() {
+        return new ArrayList<>(registry.getApiNames());
+    }
+
+    /**
+     * It checks whether an api is configured.
+     * @param apiName the api name
+     * @return true if the api is configured, false otherwise
+     */
+    public boolean isApiConfigured(String apiName) {
+        if (apiName == null) {
+            return false;
+        }
+
+        return registry.getApiNames().contains(apiName);
+    }
+
+    /**
+     * It returns a snapshot of the decisions taken for the registered APIs.
+     * @return the metrics
+     */
+    public ApiLimiterMetrics getMetrics() {
+        Map<String, ApiMetrics> apis = new TreeMap<>();
+        Registry registry = this.registry;
+
+        for (String apiName : registry.getApiNames()) {
+            ClientLimiters clientLimiters = registry.getClientLimiters(apiName);
+            Map<String, Long> allowed = new TreeMap<>();
+            Map<String, Long> rejected = new TreeMap<>();
+            long offHeapBytes = 0;
+            for (Map.Entry<String, Limiter> entry : clientLimiters.getLimiters().entrySet()) {
+                allowed.put(entry.getKey(), entry.getValue().getAllowed());
+                rejected.put(entry.getKey(), entry.getValue().getRejected());
+                offHeapBytes += entry.getValue().getOffHeapBytes();
+            }
+
+            apis.put(apiName, new ApiMetrics(apiName, allowed, rejected, clientLimiters.getUnknownClients(), offHeapBytes));
+        }
+
+        return new ApiLimiterMetrics(apis, unknownApis.sum(), latencies.getCounts());
+    }
+
+    /**
+     * It samples the latency of the consume calls, reported by {@link ApiLimiterMetrics#getLatencyHistogram()}.
+     * Sampling is disabled by default.
+     * @param rate the average number of consume calls per sampled call, or 0 to disable sampling
+     */
+    public void setLatencySampling(int rate) {
+        if (rate < 0) {
+            throw new ApiLimiterException("Sampling rate cannot be negative");
+        }
+
+        this.latencySampling = rate;
+    }
+
+    /**
+     * It returns the policy of the consume methods for the calls of unknown APIs and clients without a fallback API.
+     * @return the policy
+     */
+    public UnknownPolicy getUnknownPolicy() {
+        return unknownPolicy;
+    }
+
+    /**
+     * It sets the policy of the consume methods for the calls of unknown APIs and clients without a fallback API.
+     * The policy is {@link UnknownPolicy#THROW} by default.
+     * @param policy the policy
+     */
+    public void setUnknownPolicy(UnknownPolicy policy) {
+        if (policy == null) {
+            throw new ApiLimiterException("Unknown policy cannot be null");
+        }
+
+        this.unknownPolicy = policy;
+    }
+
+    /**
+     * It sets the API whose limiter consumes the calls of unknown APIs and clients, before applying the policy
+     * for unknown APIs and clients. The fallback API is looked up by its exact name, on behalf of the client of the call.
+     * There is no fallback API by default.
+     * @param apiName the api name, or null to remove the fallback API
+     */
+    public void setFallbackApi(String apiName) {
+        this.fallbackApi = apiName;
+    }
+
+    /**
+     * It registers the {@link ApiLimiterMXBean} of this registry in the platform MBean server,
+     * unless it is already registered.
+     * @param objectName the object name of the MBean
+     * @throws ApiLimiterException if the MBean cannot be registered
+     */
+    public void registerMBean(String objectName) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+
+            synchronized (this) {
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(new ApiLimiterMXBeanImpl(this), name);
+                }
+            }
+        } catch (JMException e) {
+            throw new ApiLimiterException(String.format("Cannot register MBean %s: %s", objectName, e.getMessage()));
+        }
+    }
+
+    /**
+     * It writes a snapshot of the clients of the registered APIs that are not idle, to restore them
+     * with {@link #readSnapshot(InputStream)} after a restart. The snapshot is streamed while consumers keep going:
+     * each state is read atomically, without pausing the consume calls.
+     * The states shared with other processes through shared memory are not written.
+     * @param out the output, not closed
+     * @throws ApiLimiterException if the output fails
+     */
+    public void writeSnapshot(OutputStream out) {
+        try {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, SNAPSHOT_BUFFER));
+            data.writeInt(SNAPSHOT_MAGIC);
+            data.writeInt(SNAPSHOT_VERSION);
+            data.writeLong(wallClock.millis());
+            registry.writeSnapshot(data);
+            data.flush();
+        } catch (IOException e) {
+            throw new ApiLimiterException(String.format("Cannot write snapshot: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * It restores a snapshot written by {@link #writeSnapshot(OutputStream)} in the registered APIs,
+     * hence the APIs must be registered first. The time elapsed since the snapshot is measured with the wall clock of the registry:
+     * clients that became idle meanwhile are skipped, as well as APIs not registered anymore or registered
+     * with another configuration.
+     * @param in the input, not closed
+     * @return the number of restored clients
+     * @throws ApiLimiterException if the input fails or it is not a snapshot
+     */
+    public int readSnapshot(InputStream in) {
+        try {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(in, SNAPSHOT_BUFFER));
+            if (data.readInt() != SNAPSHOT_MAGIC || data.readInt() != SNAPSHOT_VERSION) {
+                throw new ApiLimiterException("Not a snapshot of this version of the limiter");
+            }
+
+            long elapsed = Math.max(0, wallClock.millis() - data.readLong());
+            return registry.readSnapshot(data, elapsed);
+        } catch (IOException e) {
+            throw new ApiLimiterException(String.format("Cannot read snapshot: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * It writes a snapshot to a file, replacing it atomically.
+     * @param file the file
+     * @throws ApiLimiterException if the file cannot be written
+     * @see #writeSnapshot(OutputStream)
+     */
+    public void saveSnapshot(Path file) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                writeSnapshot(out);
+            }
+
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ApiLimiterException(String.format("Cannot save snapshot %s: %s", file, e.getMessage()));
+        }
+    }
+
+    /**
+     * It restores a snapshot from a file, if it exists.
+     * @param file the file
+     * @return the number of restored clients, 0 if the file does not exist
+     * @throws ApiLimiterException if the file cannot be read or it is not a snapshot
+     * @see #readSnapshot(InputStream)
+     */
+    public int loadSnapshot(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return readSnapshot(in);
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            throw new ApiLimiterException(String.format("Cannot load snapshot %s: %s", file, e.getMessage()));
+        }
+    }
+
+    /**
+     * It saves a snapshot to a file periodically, on a daemon thread shared by the snapshots of all registries,
+     * so that writing a snapshot does not delay the asynchronous acquisitions. Failed snapshots are retried at the next period.
+     * @param file the file
+     * @param period the time between two snapshots, in milliseconds
+     * @return the future of the periodic snapshots, to cancel them
+     */
+    public ScheduledFuture<?> scheduleSnapshots(Path file, long period) {
+        if (period <= 0) {
+            throw new ApiLimiterException("Period must be positive");
+        }
+
+        return Snapshots.SCHEDULER.scheduleWithFixedDelay(() -> {
+            try {
+                saveSnapshot(file);
+            } catch (ApiLimiterException e) {
+                // the next snapshot replaces the missing one
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * It saves a snapshot to a file when the JVM shuts down.
+     * @param file the file
+     */
+    public void saveSnapshotOnShutdown(Path file) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> saveSnapshot(file), "api-limiter-snapshot"));
+    }
+
+    /**
+     * It consumes an API.
+     * @param apiName the api name
+     * @return true if consumed successfully, false if the current API call exceeds
+     * the configured API maximum calls in the configured API timeframe
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found
+     */
+    public boolean consume(String apiName) {
+        return consume(apiName, ApiConfig.ALL_CLIENTS);
+    }
+
+    /**
+     * It consumes an API on behalf of a specific client.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @return true if consumed successfully, false if the current API call exceeds
+     * the configured API maximum calls within the configured API timeframe
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found
+     */
+    public boolean consume(String apiName, String client) {
+        return consume(apiName, client, 1);
+    }
+
+    /**
+     * It consumes some calls of an API at once on behalf of a specific client: either all of them or none.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param permits the number of calls
+     * @return true if consumed successfully, false if the current API calls exceed
+     * the configured API maximum calls within the configured API timeframe
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found,
+     * or permits are not positive
+     */
+    public boolean consume(String apiName, String client, int permits) {
+        return consume(apiName, client, permits, null);
+    }
+
+    /**
+     * It consumes some calls of an API at once on behalf of a specific client: either all of them or none,
+     * describing the outcome and the quota left to the client in a result, which can be reused across calls.
+     * The calls of unknown APIs and clients are consumed from the fallback API, if any, otherwise
+     * they follow the {@link UnknownPolicy} of the registry.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param permits the number of calls
+     * @param result the result to fill, or null to get the outcome only
+     * @return true if consumed successfully, false if the current API calls exceed
+     * the configured API maximum calls within the configured API timeframe
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found,
+     * without a fallback API and with the {@link UnknownPolicy#THROW} policy, or permits are not positive
+     */
+    public boolean consume(String apiName, String client, int permits, ConsumeResult result) {
+        Registry registry = this.registry;
+        ConsumeStatus status = consume(registry, apiName, client, permits, result);
+        if (status == ConsumeStatus.ALLOWED || status == ConsumeStatus.REJECTED) {
+            return status == ConsumeStatus.ALLOWED;
+        }
+
+        UnknownPolicy unknownPolicy = this.unknownPolicy;
+        if (unknownPolicy == UnknownPolicy.THROW) {
+            throw unknown(registry, apiName, client);
+        }
+
+        boolean allowed = unknownPolicy == UnknownPolicy.ALLOW;
+        if (result != null) {
+            result.set(allowed, allowed ? Long.MAX_VALUE : 0, 0, allowed ? 0 : ConsumeResult.NEVER);
+        }
+
+        return allowed;
+    }
+
+    /**
+     * It consumes an API on behalf of a specific client, reporting unknown APIs and clients with a status
+     * instead of an exception, regardless of the policy for unknown APIs and clients.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @return the status
+     */
+    public ConsumeStatus tryConsume(String apiName, String client) {
+        return tryConsume(apiName, client, 1);
+    }
+
+    /**
+     * It consumes some calls of an API at once on behalf of a specific client: either all of them or none,
+     * reporting unknown APIs and clients with a status instead of an exception, regardless of the policy
+     * for unknown APIs and clients. Calls of unknown APIs and clients are still consumed from the fallback API, if any.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param permits the number of calls
+     * @return the status
+     * @throws ApiLimiterException if permits are not positive
+     */
+    public ConsumeStatus tryConsume(String apiName, String client, int permits) {
+        return tryConsume(apiName, client, permits, null);
+    }
+
+    /**
+     * It consumes some calls of an API at once on behalf of a specific client: either all of them or none,
+     * reporting unknown APIs and clients with a status instead of an exception, and describing the outcome
+     * and the quota left to the client in a result, which can be reused across calls.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param permits the number of calls
+     * @param result the result to fill if the API and the client are known, or null to get the status only
+     * @return the status
+     * @throws ApiLimiterException if permits are not positive
+     */
+    public ConsumeStatus tryConsume(String apiName, String client, int permits, ConsumeResult result) {
+        return consume(registry, apiName, client, permits, result);
+    }
+
+    private ConsumeStatus consume(Registry registry, String apiName, String client, int permits, ConsumeResult result) {
+        int latencySampling = this.latencySampling;
+        if (latencySampling == 0 || ThreadLocalRandom.current().nextInt(latencySampling) != 0) {
+            return consumeOrReport(registry, apiName, client, permits, result);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return consumeOrReport(registry, apiName, client, permits, result);
+        } finally {
+            latencies.record(System.nanoTime() - start);
+        }
+    }
+
+    private ConsumeStatus consumeOrReport(Registry registry, String apiName, String client, int permits, ConsumeResult result) {
+        checkPermits(permits);
+        Limiter limiter = lookup(registry, apiName, client);
+        if (limiter == null) {
+            return apiName == null || lookupApi(registry, apiName) == null ? ConsumeStatus.UNKNOWN_API : ConsumeStatus.UNKNOWN_CLIENT;
+        }
+
+        String counted = limiter.clientOf(client);
+        boolean consumed = result == null ? limiter.consume(counted, permits) : limiter.consume(counted, permits, result);
+        return consumed ? ConsumeStatus.ALLOWED : ConsumeStatus.REJECTED;
+    }
+
+    /**
+     * It describes whether a call of an API could be consumed now on behalf of a specific client and the quota
+     * left to the client, without consuming it.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param result the result to fill
+     * @return the result
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found
+     */
+    public ConsumeResult peek(String apiName, String client, ConsumeResult result) {
+        Limiter limiter = resolve(registry, apiName, client);
+        limiter.peek(limiter.clientOf(client), result);
+        return result;
+    }
+
+    /**
+     * It consumes an API on behalf of a specific client, waiting until it can be consumed or the timeout expires.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param timeout the max time to wait
+     * @param unit the unit of the timeout
+     * @return true if consumed successfully, false if the API call could not be consumed within the timeout
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean acquire(String apiName, String client, long timeout, TimeUnit unit) throws InterruptedException {
+        return acquire(apiName, client, 1, timeout, unit);
+    }
+
+    /**
+     * It consumes some calls of an API at once on behalf of a specific client, waiting until they can be consumed
+     * or the timeout expires. It gives up immediately if the calls could not be consumed before the timeout.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param permits the number of calls
+     * @param timeout the max time to wait
+     * @param unit the unit of the timeout
+     * @return true if consumed successfully, false if the calls could not be consumed within the timeout
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found,
+     * or permits are not positive
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean acquire(String apiName, String client, int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        return handle(apiName, client).acquire(permits, timeout, unit);
+    }
+
+    /**
+     * It consumes an API on behalf of a specific client without blocking the current thread
+     * while waiting until it can be consumed or the timeout expires.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param timeout the max time to wait
+     * @param unit the unit of the timeout
+     * @return the future result: true if consumed successfully, false if the API call could not be consumed within the timeout
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found
+     * @see ApiHandle#acquireAsync(int, long, TimeUnit)
+     */
+    public CompletableFuture<Boolean> acquireAsync(String apiName, String client, long timeout, TimeUnit unit) {
+        return acquireAsync(apiName, client, 1, timeout, unit);
+    }
+
+    /**
+     * It consumes some calls of an API at once on behalf of a specific client without blocking the current thread
+     * while waiting until they can be consumed or the timeout expires.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param permits the number of calls
+     * @param timeout the max time to wait
+     * @param unit the unit of the timeout
+     * @return the future result: true if consumed successfully, false if the calls could not be consumed within the timeout
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found,
+     * or permits are not positive
+     * @see ApiHandle#acquireAsync(int, long, TimeUnit)
+     */
+    public CompletableFuture<Boolean> acquireAsync(String apiName, String client, int permits, long timeout, TimeUnit unit) {
+        return handle(apiName, client).acquireAsync(permits, timeout, unit);
+    }
+
+    /**
+     * It resolves an API for a client once, returning a handle to consume API calls without looking them up again.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @return the handle
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found
+     */
+    public ApiHandle handle(String apiName, String client) {
+        return new ApiHandle(this, apiName, client);
+    }
+
+    /**
+     * It resolves an API configured for all clients once, returning a handle to consume API calls without looking it up again.
+     * @param apiName the api name
+     * @return the handle
+     * @throws ApiLimiterException if api name is null or not registered
+     */
+    public ApiHandle handle(String apiName) {
+        return handle(apiName, ApiConfig.ALL_CLIENTS);
+    }
+
+    /**
+     * It consumes calls of APIs in bulk. Each request is consumed either entirely or not at all,
+     * and the requests resolved to the same API and client are evaluated in order with a single update.
+     * @param requests the requests
+     * @return the result of each request: true if consumed successfully, false otherwise
+     * @throws ApiLimiterException if any api name is null or not registered, or any client is null or not found,
+     * without a fallback API and with the {@link UnknownPolicy#THROW} policy, or any permits are not positive.
+     * In that case no request is consumed
+     */
+    public boolean[] consumeAll(List<ConsumeRequest> requests) {
+        Registry registry = this.registry;
+        UnknownPolicy unknownPolicy = this.unknownPolicy;
+        boolean[] consumed = new boolean[requests.size()];
+
+        // group the indexes of the requests by limiter and client
+        Map<Map.Entry<Limiter, String>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ConsumeRequest request = requests.get(i);
+            checkPermits(request.getPermits());
+            Limiter limiter = unknownPolicy == UnknownPolicy.THROW ? resolve(registry, request.getApiName(), request.getClient())
+                    : lookup(registry, request.getApiName(), request.getClient());
+            if (limiter == null) {
+                consumed[i] = unknownPolicy == UnknownPolicy.ALLOW;
+                continue;
+            }
+
+            groups.computeIfAbsent(new AbstractMap.SimpleImmutableEntry<>(limiter, limiter.clientOf(request.getClient())), k -> new ArrayList<>()).add(i);
+        }
+
+        for (Map.Entry<Map.Entry<Limiter, String>, List<Integer>> group : groups.entrySet()) {
+            List<Integer> indexes = group.getValue();
+            int[] permits = new int[indexes.size()];
+            for (int i = 0; i < permits.length; i++) {
+                permits[i] = requests.get(indexes.get(i)).getPermits();
+            }
+
+            boolean[] groupConsumed = new boolean[permits.length];
+            group.getKey().getKey().consumeAll(group.getKey().getValue(), permits, groupConsumed);
+
+            for (int i = 0; i < groupConsumed.length; i++) {
+                consumed[indexes.get(i)] = groupConsumed[i];
+            }
+        }
+
+        return consumed;
+    }
+
+    /**
+     * It resolves the limiter of an API for a client, or of the fallback API if the API or the client is unknown.
+     * @param registry the registry
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @return the limiter, which limits the client of its {@link ApiConfig}
+     * @throws ApiLimiterException if api name is null or not registered, or client is null or not found,
+     * and there is no fallback API for the client
+     */
+    Limiter resolve(Registry registry, String apiName, String client) {
+        Limiter limiter = lookup(registry, apiName, client);
+        if (limiter == null) {
+            throw unknown(registry, apiName, client);
+        }
+
+        return limiter;
+    }
+
+    /**
+     * It looks up the limiter of an API for a client, or of the fallback API if the API or the client is unknown,
+     * counting unknown APIs and clients.
+     * @param registry the registry
+     * @param apiName the api name
+     * @param client the client name
+     * @return the limiter, or null if the API or the client is unknown and there is no fallback API for the client
+     */
+    private Limiter lookup(Registry registry, String apiName, String client) {
+        if (apiName == null) {
+            return fallback(registry, client);
+        }
+
+        ClientLimiters clientLimiters = lookupApi(registry, apiName);
+        if (clientLimiters == null) {
+            unknownApis.increment();
+            return fallback(registry, client);
+        }
+
+        Limiter limiter = lookupClient(clientLimiters, client);
+        if (limiter == null) {
+            clientLimiters.unknownClient();
+            return fallback(registry, client);
+        }
+
+        return limiter;
+    }
+
+    /**
+     * It looks up the limiters of an API.
+     * @param registry the registry
+     * @param apiName the api name
+     * @return the limiters of the API itself if registered, otherwise of the most specific root API it is a child of,
+     * or null if there is none
+     */
+    private static ClientLimiters lookupApi(Registry registry, String apiName) {
+        // an API registered by its own name takes precedence over the root APIs it is a child of
+        ClientLimiters clientLimiters = registry.getClientLimiters(apiName);
+        return clientLimiters != null ? clientLimiters : registry.getClientLimiters(registry.resolveApiName(apiName));
+    }
+
+    /**
+     * It looks up the limiter of a client among the limiters of an API.
+     * @param clientLimiters the limiters of the API, or null
+     * @param client the client name
+     * @return the limiter, or null if the client is unknown
+     */
+    private static Limiter lookupClient(ClientLimiters clientLimiters, String client) {
+        if (clientLimiters == null) {
+            return null;
+        }
+
+        // the configuration of the client takes precedence over the configuration for all clients,
+        // which can still limit the client as its parent
+        Limiter limiter = client == null ? null : clientLimiters.get(client);
+        if (limiter != null) {
+            return limiter;
+        }
+
+        limiter = clientLimiters.get(ApiConfig.ALL_CLIENTS);
+        return limiter != null && (client != null || !limiter.getApiConfig().isPerClient()) ? limiter : null;
+    }
+
+    /**
+     * It looks up the limiter of the fallback API for a client.
+     * @param registry the registry
+     * @param client the client name
+     * @return the limiter, or null if there is no fallback API or it does not know the client
+     */
+    private Limiter fallback(Registry registry, String client) {
+        String fallbackApi = this.fallbackApi;
+        return fallbackApi == null ? null : lookupClient(registry.getClientLimiters(fallbackApi), client);
+    }
+
+    /**
+     * It builds the exception for an unknown API or client, without counting it.
+     * @param registry the registry
+     * @param apiName the api name
+     * @param client the client name
+     * @return the exception
+     */
+    private static ApiLimiterException unknown(Registry registry, String apiName, String client) {
+        if (apiName == null) {
+            return new ApiLimiterException("API name cannot be null");
+        }
+
+        ClientLimiters clientLimiters = registry.getClientLimiters(apiName);
+        if (clientLimiters == null) {
+            apiName = registry.resolveApiName(apiName);
+            clientLimiters = registry.getClientLimiters(apiName);
+        }
+
+        if (clientLimiters == null) {
+            return new ApiLimiterException(String.format("API %s not registered", apiName));
+        } else if (client == null) {
+            return new ApiLimiterException("Client cannot be null");
+        } else {
+            return new ApiLimiterException(String.format("Client %s non found for API %s", client, apiName));
+        }
+    }
+
+    /**
+     * It returns the current snapshot of the registered APIs.
+     * @return the snapshot
+     */
+    Registry getRegistry() {
+        return registry;
+    }
+
+    static void checkPermits(int permits) {
+        if (permits <= 0) {
+            throw new ApiLimiterException("Permits must be positive");
+        }
+    }
+
+    /**
+     * The scheduler of the periodic snapshots, created with the first of them.
+     */
+    private static final class Snapshots {
+        private final static ScheduledExecutorService SCHEDULER = Waiters.newScheduler("api-limiter-snapshots");
+    }
+
+    /**
+     * A builder of {@link ApiLimiterRegistry}.
+     */
+    public static final class Builder {
+        private final static long DEFAULT_STORE_TIMEOUT = 100;
+
+        private Clock clock;
+        private Clock wallClock = Clock.system();
+        private int latencySampling;
+        private UnknownPolicy unknownPolicy = UnknownPolicy.THROW;
+        private String fallbackApi;
+        private StateStore store;
+        private long storeTimeout = DEFAULT_STORE_TIMEOUT;
+        private Path sharedMemory;
+        private int slots;
+        private boolean offHeap;
+
+        private Builder() {}
+
+        /**
+         * It sets the clock of the APIs of the registry. By default the clock is {@link Clock#monotonic()},
+         * or {@link Clock#system()} if the registry uses shared memory.
+         * @param clock the clock
+         * @return this builder
+         */
+        public Builder clock(Clock clock) {
+            if (clock == null) {
+                throw new ApiLimiterException("Clock cannot be null");
+            }
+
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * It sets the wall clock of the registry, which measures the time elapsed between writing and reading a snapshot,
+         * hence it must have the same origin across restarts. By default it is {@link Clock#system()}.
+         * @param clock the clock
+         * @return this builder
+         */
+        public Builder wallClock(Clock clock) {
+            if (clock == null) {
+                throw new ApiLimiterException("Clock cannot be null");
+            }
+
+            this.wallClock = clock;
+            return this;
+        }
+
+        /**
+         * It samples the latency of the consume calls of the registry. Sampling is disabled by default.
+         * @param rate the average number of consume calls per sampled call, or 0 to disable sampling
+         * @return this builder
+         */
+        public Builder latencySampling(int rate) {
+            if (rate < 0) {
+                throw new ApiLimiterException("Sampling rate cannot be negative");
+            }
+
+            this.latencySampling = rate;
+            return this;
+        }
+
+        /**
+         * It sets the policy of the consume methods for the calls of unknown APIs and clients without a fallback API.
+         * The policy is {@link UnknownPolicy#THROW} by default.
+         * @param policy the policy
+         * @return this builder
+         */
+        public Builder unknownPolicy(UnknownPolicy policy) {
+            if (policy == null) {
+                throw new ApiLimiterException("Unknown policy cannot be null");
+            }
+
+            this.unknownPolicy = policy;
+            return this;
+        }
+
+        /**
+         * It sets the API whose limiter consumes the calls of unknown APIs and clients, before applying the policy
+         * for unknown APIs and clients. There is no fallback API by default.
+         * @param apiName the api name
+         * @return this builder
+         */
+        public Builder fallbackApi(String apiName) {
+            this.fallbackApi = apiName;
+            return this;
+        }
+
+        /**
+         * It enforces the max calls of the APIs of the registry across all the registries sharing a state store,
+         * possibly on different nodes. Only the fixed window algorithm is supported. By default calls are limited locally.
+         * @param store the store
+         * @return this builder
+         */
+        public Builder stateStore(StateStore store) {
+            if (store == null) {
+                throw new ApiLimiterException("Store cannot be null");
+            }
+
+            this.store = store;
+            return this;
+        }
+
+        /**
+         * It sets the max time to wait for the state store. Afterwards, calls are decided locally
+         * with the quota left by the last answer of the store for the client. By default it is 100 milliseconds.
+         * @param timeout the timeout in milliseconds
+         * @return this builder
+         */
+        public Builder storeTimeout(long timeout) {
+            if (timeout < 0) {
+                throw new ApiLimiterException("Store timeout cannot be negative");
+            }
+
+            this.storeTimeout = timeout;
+            return this;
+        }
+
+        /**
+         * It keeps the states of the clients of each API in a memory-mapped file of a directory, shared by the processes
+         * of a host which register the same API with the same configuration, so that they enforce the max calls together.
+         * Each file is a table with a fixed number of slots, which bounds the clients of the API instead of its max clients.
+         * The clocks of the processes must have the same origin. It replaces the off heap tables set before.
+         * By default the states are kept in the heap of the process.
+         * @param directory the directory of the files
+         * @param slots the number of slots of each API, rounded up to a power of two
+         * @return this builder
+         */
+        public Builder sharedMemory(Path directory, int slots) {
+            if (directory == null) {
+                throw new ApiLimiterException("Directory cannot be null");
+            } else if (slots <= 0) {
+                throw new ApiLimiterException("Slots must be positive");
+            }
+
+            this.sharedMemory = directory;
+            this.slots = slots;
+            this.offHeap = false;
+            return this;
+        }
+
+        /**
+         * It keeps the states of the clients of each API outside of the heap, in a table with a fixed number of slots
+         * of 16 bytes, which bounds the clients of the API instead of its max clients.
+         * The footprint of the tables is reported by {@link ApiMetrics#getOffHeapBytes()}.
+         * It replaces the shared memory set before. By default the states are kept in the heap.
+         * @param slots the number of slots of each API, rounded up to a power of two
+         * @return this builder
+         */
+        public Builder offHeap(int slots) {
+            if (slots <= 0) {
+                throw new ApiLimiterException("Slots must be positive");
+            }
+
+            this.sharedMemory = null;
+            this.slots = slots;
+            this.offHeap = true;
+            return this;
+        }
+
+        /**
+         * It builds a registry without APIs.
+         * @return the registry
+         */
+        public ApiLimiterRegistry build() {
+            return new ApiLimiterRegistry(this);
+        }
+    }
+}
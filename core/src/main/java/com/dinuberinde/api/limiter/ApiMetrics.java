@@ -0,0 +1,82 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.Immutable;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A snapshot of the decisions taken for the calls of an API.
+ * The counters survive the registration or reconfiguration of the API for the same client,
+ * and start again from zero if the API is unregistered.
+ */
+@Immutable
+public final class ApiMetrics {
+    private final String apiName;
+    private final Map<String, Long> allowed;
+    private final Map<String, Long> rejected;
+    private final long unknownClients;
+    private final long offHeapBytes;
+
+    ApiMetrics(String apiName, Map<String, Long> allowed, Map<String, Long> rejected, long unknownClients, long offHeapBytes) {
+        this.apiName = apiName;
+        this.allowed = Collections.unmodifiableMap(allowed);
+        this.rejected = Collections.unmodifiableMap(rejected);
+        this.unknownClients = unknownClients;
+        this.offHeapBytes = offHeapBytes;
+    }
+
+    public String getApiName() {
+        return apiName;
+    }
+
+    /**
+     * It returns the number of allowed calls of the API.
+     * @return the number of calls
+     */
+    public long getAllowed() {
+        return allowed.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * It returns the number of rejected calls of the API.
+     * @return the number of calls
+     */
+    public long getRejected() {
+        return rejected.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * It returns the number of allowed calls of the API by configured client,
+     * where {@link ApiConfig#ALL_CLIENTS} stands for the limiter shared by all clients.
+     * @return the number of calls by client
+     */
+    public Map<String, Long> getAllowedByClient() {
+        return allowed;
+    }
+
+    /**
+     * It returns the number of rejected calls of the API by configured client,
+     * where {@link ApiConfig#ALL_CLIENTS} stands for the limiter shared by all clients.
+     * @return the number of calls by client
+     */
+    public Map<String, Long> getRejectedByClient() {
+        return rejected;
+    }
+
+    /**
+     * It returns the number of calls of the API on behalf of clients not configured for the API.
+     * @return the number of calls
+     */
+    public long getUnknownClients() {
+        return unknownClients;
+    }
+
+    /**
+     * It returns the memory used by the slot tables of the API, outside of the heap.
+     * @return the number of bytes, 0 if the states of the clients are kept in the heap
+     */
+    public long getOffHeapBytes() {
+        return offHeapBytes;
+    }
+}
@@ -0,0 +1,58 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A monotonic clock whose time is updated periodically by a ticker thread, so that reading it costs a volatile read.
+ * It is meant for very high call rates, where the resolution of the clock is less important than its cost.
+ * The ticker thread is a daemon thread, stopped by {@link #close()}.
+ */
+@ThreadSafe
+public final class CachedClock implements Clock, AutoCloseable {
+    private final Thread ticker;
+    private volatile long millis = Clock.monotonic().millis();
+    private volatile boolean closed;
+
+    /**
+     * Cached clock updated every millisecond.
+     */
+    public CachedClock() {
+        this(1);
+    }
+
+    /**
+     * Cached clock updated with the given resolution.
+     * @param resolution the time between two updates of the clock, in milliseconds
+     */
+    public CachedClock(long resolution) {
+        if (resolution <= 0) {
+            throw new ApiLimiterException("Resolution must be positive");
+        }
+
+        this.ticker = new Thread(() -> {
+            while (!closed) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(resolution));
+                millis = Clock.monotonic().millis();
+            }
+        }, "api-limiter-clock");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    /**
+     * It stops the ticker thread. The time of the clock does not change anymore afterwards.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(ticker);
+    }
+}
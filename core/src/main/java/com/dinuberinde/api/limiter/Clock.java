@@ -0,0 +1,30 @@
+package com.dinuberinde.api.limiter;
+
+/**
+ * A source of time for the limiters, in milliseconds. Only differences between times are meaningful.
+ */
+public interface Clock {
+
+    /**
+     * It returns the current time.
+     * @return the current time in milliseconds
+     */
+    long millis();
+
+    /**
+     * It returns a clock based on {@link System#nanoTime()}, which is not affected by changes of the wall clock.
+     * @return the monotonic clock
+     */
+    static Clock monotonic() {
+        return MonotonicClock.INSTANCE;
+    }
+
+    /**
+     * It returns a clock based on {@link System#currentTimeMillis()}, which has the same origin in all the processes
+     * of a host, but it is affected by changes of the wall clock.
+     * @return the system clock
+     */
+    static Clock system() {
+        return SystemClock.INSTANCE;
+    }
+}
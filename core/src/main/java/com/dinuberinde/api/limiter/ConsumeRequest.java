@@ -0,0 +1,48 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A request to consume some calls of an API on behalf of a client, to be evaluated in bulk
+ * by {@link ApiLimiterRegistry#consumeAll(java.util.List)}.
+ */
+@Immutable
+public final class ConsumeRequest {
+    private final String apiName;
+    private final String client;
+    private final int permits;
+
+
+    /**
+     * Request to consume calls of an API on behalf of a client.
+     * @param apiName the api name
+     * @param client the client name (ignored if the API was configured for all clients as a whole but not for this client)
+     * @param permits the number of calls
+     */
+    public ConsumeRequest(String apiName, String client, int permits) {
+        this.apiName = apiName;
+        this.client = client;
+        this.permits = permits;
+    }
+
+    /**
+     * Request to consume calls of an API configured for all clients.
+     * @param apiName the api name
+     * @param permits the number of calls
+     */
+    public ConsumeRequest(String apiName, int permits) {
+        this(apiName, ApiConfig.ALL_CLIENTS, permits);
+    }
+
+    public String getApiName() {
+        return apiName;
+    }
+
+    public String getClient() {
+        return client;
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+}
@@ -0,0 +1,72 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * The outcome of consuming some calls of an API, with the quota of the client, filled by
+ * {@link ApiLimiterRegistry#consume(String, String, int, ConsumeResult)} and {@link ApiLimiterRegistry#peek(String, String, ConsumeResult)}.
+ * A result can be reused for any number of calls by the same thread, so that consuming allocates nothing.
+ * The quota is computed from the same state which decided the outcome, and it describes the limiter resolved
+ * for the client, not its parents.
+ */
+@NotThreadSafe
+public final class ConsumeResult {
+    /**
+     * The retry delay of calls that can never be consumed, since they exceed the max calls.
+     */
+    public final static long NEVER = -1;
+
+    private boolean consumed;
+    private long remaining;
+    private long resetTime;
+    private long retryAfter;
+
+
+    /**
+     * It checks whether the calls were consumed, or whether a call could be consumed now for {@link ApiLimiterRegistry#peek(String, String, ConsumeResult)}.
+     * @return true if consumed, false otherwise
+     */
+    public boolean isConsumed() {
+        return consumed;
+    }
+
+    /**
+     * It returns the number of calls that the client can still consume now, one at a time.
+     * @return the number of calls
+     */
+    public long getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * It returns the time after which all the calls of the client are available again, if it makes no other calls.
+     * @return the time in milliseconds, 0 if all the calls are available
+     */
+    public long getResetTime() {
+        return resetTime;
+    }
+
+    /**
+     * It returns the time to wait before the calls could be consumed, if they were not.
+     * @return the time in milliseconds, 0 if the calls were consumed, or {@link #NEVER} if they exceed the max calls
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * It sets the outcome of consuming some calls.
+     * @param consumed true if the calls were consumed, false otherwise
+     * @param remaining the number of calls that the client can still consume now
+     * @param resetTime the time after which all the calls of the client are available again, in milliseconds
+     * @param retryAfter the time to wait before the calls could be consumed, in milliseconds, or {@link #NEVER}
+     * @return this result
+     */
+    public ConsumeResult set(boolean consumed, long remaining, long resetTime, long retryAfter) {
+        this.consumed = consumed;
+        this.remaining = remaining;
+        this.resetTime = resetTime;
+        this.retryAfter = retryAfter;
+        return this;
+    }
+}
@@ -0,0 +1,30 @@
+package com.dinuberinde.api.limiter;
+
+/**
+ * The outcome of consuming some calls of an API with {@link ApiLimiterRegistry#tryConsume(String, String, int)},
+ * which reports unknown APIs and clients without throwing exceptions.
+ */
+public enum ConsumeStatus {
+
+    /**
+     * The calls were consumed.
+     */
+    ALLOWED,
+
+    /**
+     * The calls were not consumed, since the client exceeded the max calls.
+     */
+    REJECTED,
+
+    /**
+     * The API name is null, or neither registered nor the child of a registered root API,
+     * and there is no fallback API for the client.
+     */
+    UNKNOWN_API,
+
+    /**
+     * The client is null, or not registered for the API which is not configured for all clients,
+     * and there is no fallback API for the client.
+     */
+    UNKNOWN_CLIENT
+}
@@ -0,0 +1,139 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The reference {@link StateStore}, keeping the windows of the keys in memory.
+ * It can be shared by the registries of a process, and it documents the semantics expected from remote stores.
+ * Expired windows are removed incrementally: each increment inspects a few windows, so that no caller pays
+ * for a scan of all the keys.
+ */
+@ThreadSafe
+public final class InMemoryStateStore implements StateStore {
+    /**
+     * The number of windows inspected by a sweep for each increment, more than the windows an increment can create.
+     */
+    private final static int SWEEP_BATCH = 2;
+
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    @GuardedBy("sweeping")
+    private Iterator<Map.Entry<String, Window>> sweepCursor;
+    private final Clock clock;
+
+
+    /**
+     * In memory store measuring the windows with {@link Clock#monotonic()}.
+     */
+    public InMemoryStateStore() {
+        this(Clock.monotonic());
+    }
+
+    /**
+     * In memory store measuring the windows with a given clock.
+     * @param clock the clock
+     */
+    public InMemoryStateStore(Clock clock) {
+        if (clock == null) {
+            throw new ApiLimiterException("Clock cannot be null");
+        }
+
+        this.clock = clock;
+    }
+
+    @Override
+    public CompletableFuture<List<IncrementResult>> incrementAll(List<IncrementRequest> requests) {
+        long now = clock.millis();
+        List<IncrementResult> results = new ArrayList<>(requests.size());
+
+        for (IncrementRequest request : requests) {
+            Window[] previous = new Window[1];
+            Window window = windows.compute(request.getKey(), (key, current) -> {
+                previous[0] = current == null || current.isExpired(now) ? null : current;
+                long calls = previous[0] == null ? request.getPermits() : previous[0].calls + request.getPermits();
+                if (calls > request.getMaxCalls()) {
+                    return previous[0];
+                }
+
+                return new Window(previous[0] == null ? now : previous[0].start, request.getTimeFrame(), calls);
+            });
+
+            boolean consumed = window != null && window != previous[0];
+            long calls = window == null ? 0 : window.calls;
+            long resetTime = request.getPermits() > request.getMaxCalls() ? IncrementResult.NEVER : window.start + window.timeFrame - now;
+            results.add(new IncrementResult(consumed, calls, resetTime));
+        }
+
+        sweep(SWEEP_BATCH * requests.size(), now);
+        return CompletableFuture.completedFuture(results);
+    }
+
+    /**
+     * It inspects the next windows and removes the expired ones.
+     * Only one thread sweeps at a time, the others skip the sweep instead of waiting for it.
+     * @param batch the max number of windows to inspect
+     * @param now the current time
+     */
+    private void sweep(int batch, long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            for (int i = 0; i < batch; i++) {
+                if (sweepCursor == null || !sweepCursor.hasNext()) {
+                    sweepCursor = windows.entrySet().iterator();
+                    if (!sweepCursor.hasNext()) {
+                        return;
+                    }
+                }
+
+                Map.Entry<String, Window> entry = sweepCursor.next();
+                if (entry.getValue().isExpired(now)) {
+                    windows.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * It returns the number of keys with a window, including expired windows not removed yet.
+     * @return the number of keys
+     */
+    public int size() {
+        return windows.size();
+    }
+
+    /**
+     * The window of a key.
+     */
+    @Immutable
+    private static final class Window {
+        private final long start;
+        private final long timeFrame;
+        private final long calls;
+
+        private Window(long start, long timeFrame, long calls) {
+            this.start = start;
+            this.timeFrame = timeFrame;
+            this.calls = calls;
+        }
+
+        private boolean isExpired(long now) {
+            return now - start >= timeFrame;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A request to increment the calls of a key of a {@link StateStore}.
+ */
+@Immutable
+public final class IncrementRequest {
+    private final String key;
+    private final int permits;
+    private final int maxCalls;
+    private final long timeFrame;
+
+
+    /**
+     * Request to increment the calls of a key.
+     * @param key the key, identifying an API and a client
+     * @param permits the number of calls to add
+     * @param maxCalls the max calls of the key within a window
+     * @param timeFrame the length of a window, in milliseconds
+     */
+    public IncrementRequest(String key, int permits, int maxCalls, long timeFrame) {
+        this.key = key;
+        this.permits = permits;
+        this.maxCalls = maxCalls;
+        this.timeFrame = timeFrame;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+
+    public int getMaxCalls() {
+        return maxCalls;
+    }
+
+    public long getTimeFrame() {
+        return timeFrame;
+    }
+}
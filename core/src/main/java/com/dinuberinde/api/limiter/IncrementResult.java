@@ -0,0 +1,44 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * The result of an {@link IncrementRequest}: whether the calls were added and the calls of the key afterwards.
+ */
+@Immutable
+public final class IncrementResult {
+    /**
+     * The reset time of calls that can never be added, since they exceed the max calls.
+     */
+    public final static long NEVER = -1;
+
+    private final boolean consumed;
+    private final long calls;
+    private final long resetTime;
+
+
+    /**
+     * Result of an increment.
+     * @param consumed true if the calls were added, false if they would exceed the max calls
+     * @param calls the calls of the key within its window, after the increment
+     * @param resetTime the time until the window of the key ends, in milliseconds,
+     * or {@link #NEVER} if the calls were not added since they exceed the max calls
+     */
+    public IncrementResult(boolean consumed, long calls, long resetTime) {
+        this.consumed = consumed;
+        this.calls = calls;
+        this.resetTime = resetTime;
+    }
+
+    public boolean isConsumed() {
+        return consumed;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getResetTime() {
+        return resetTime;
+    }
+}
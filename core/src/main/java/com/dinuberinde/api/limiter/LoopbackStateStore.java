@@ -0,0 +1,70 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link StateStore} which delays the results of another store, to test how limiters behave
+ * when a remote store is slow. The latency can be changed at any time.
+ * The results are delayed by a daemon thread of its own, so that they are not held up by the threads of the limiters,
+ * such as the one retrying asynchronous acquisitions, which may be waiting for them.
+ */
+@ThreadSafe
+public final class LoopbackStateStore implements StateStore {
+    private final static ScheduledExecutorService SCHEDULER = Waiters.newScheduler("api-limiter-loopback");
+
+    private final StateStore store;
+    private volatile long latency;
+
+
+    /**
+     * Store delaying the results of another store.
+     * @param store the store
+     * @param latency the delay of each operation, in milliseconds
+     */
+    public LoopbackStateStore(StateStore store, long latency) {
+        if (store == null) {
+            throw new ApiLimiterException("Store cannot be null");
+        }
+
+        this.store = store;
+        setLatency(latency);
+    }
+
+    /**
+     * It sets the delay of the operations started afterwards.
+     * @param latency the delay of each operation, in milliseconds
+     */
+    public void setLatency(long latency) {
+        if (latency < 0) {
+            throw new ApiLimiterException("Latency cannot be negative");
+        }
+
+        this.latency = latency;
+    }
+
+    @Override
+    public CompletableFuture<List<IncrementResult>> incrementAll(List<IncrementRequest> requests) {
+        long latency = this.latency;
+        if (latency == 0) {
+            return store.incrementAll(requests);
+        }
+
+        // the operation reaches the store after half of the latency, and its result comes back after the other half
+        CompletableFuture<List<IncrementResult>> result = new CompletableFuture<>();
+        SCHEDULER.schedule(() -> store.incrementAll(requests).whenComplete((results, e) ->
+                SCHEDULER.schedule(() -> {
+                    if (e != null) {
+                        result.completeExceptionally(e);
+                    } else {
+                        result.complete(results);
+                    }
+                }, latency - latency / 2, TimeUnit.MILLISECONDS)), latency / 2, TimeUnit.MILLISECONDS);
+
+        return result;
+    }
+}
@@ -0,0 +1,18 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A clock based on {@link System#nanoTime()}, which is not affected by changes of the wall clock.
+ */
+@ThreadSafe
+final class MonotonicClock implements Clock {
+    final static MonotonicClock INSTANCE = new MonotonicClock();
+
+    private MonotonicClock() {}
+
+    @Override
+    public long millis() {
+        return System.nanoTime() / 1_000_000;
+    }
+}
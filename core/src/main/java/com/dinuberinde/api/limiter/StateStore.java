@@ -0,0 +1,35 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A store of the calls of the clients shared by several limiters, possibly on different nodes,
+ * so that the max calls of an API are enforced across all of them.
+ * The calls of a key are counted in a fixed window which starts at the first call of the key
+ * and lasts the timeframe of the API, measured by the store.
+ * Operations are asynchronous and batched, so that remote stores can pipeline them.
+ */
+@ThreadSafe
+public interface StateStore {
+
+    /**
+     * It increments the calls of some keys, each one atomically and only if the calls would not exceed
+     * the max calls of the request. Requests are applied in order.
+     * @param requests the requests
+     * @return the future results, in the order of the requests
+     */
+    CompletableFuture<List<IncrementResult>> incrementAll(List<IncrementRequest> requests);
+
+    /**
+     * It increments the calls of a key atomically, only if the calls would not exceed the max calls of the request.
+     * @param request the request
+     * @return the future result
+     */
+    default CompletableFuture<IncrementResult> increment(IncrementRequest request) {
+        return incrementAll(Collections.singletonList(request)).thenApply(results -> results.get(0));
+    }
+}
@@ -0,0 +1,18 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A clock based on {@link System#currentTimeMillis()}, which has the same origin in all the processes of a host.
+ */
+@ThreadSafe
+final class SystemClock implements Clock {
+    final static SystemClock INSTANCE = new SystemClock();
+
+    private SystemClock() {}
+
+    @Override
+    public long millis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,23 @@
+package com.dinuberinde.api.limiter;
+
+/**
+ * The policies of a registry for the calls of unknown APIs and clients, applied by the consume methods
+ * after the fallback API, if any.
+ */
+public enum UnknownPolicy {
+
+    /**
+     * The calls throw an {@link ApiLimiterException}.
+     */
+    THROW,
+
+    /**
+     * The calls are allowed, without limits.
+     */
+    ALLOW,
+
+    /**
+     * The calls are rejected.
+     */
+    DENY
+}
@@ -0,0 +1,46 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A clock whose time changes only when advanced explicitly, to test limiters without waiting for their timeframes.
+ */
+@ThreadSafe
+public final class VirtualClock implements Clock {
+    private final AtomicLong millis;
+
+    /**
+     * Virtual clock starting at time 0.
+     */
+    public VirtualClock() {
+        this(0);
+    }
+
+    /**
+     * Virtual clock starting at the given time.
+     * @param millis the initial time in milliseconds
+     */
+    public VirtualClock(long millis) {
+        this.millis = new AtomicLong(millis);
+    }
+
+    @Override
+    public long millis() {
+        return millis.get();
+    }
+
+    /**
+     * It advances the time of the clock.
+     * @param millis the milliseconds to add to the time of the clock
+     * @return the new time of the clock
+     */
+    public long advance(long millis) {
+        if (millis < 0) {
+            throw new ApiLimiterException("A clock cannot go back in time");
+        }
+
+        return this.millis.addAndGet(millis);
+    }
+}
@@ -0,0 +1,36 @@
+package com.dinuberinde.api.limiter;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * The scheduler shared by the delayed tasks of all registries, such as asynchronous acquisitions retried when
+ * calls could be consumed again. Its thread is a daemon thread.
+ */
+@ThreadSafe
+final class Waiters {
+    private final static ScheduledExecutorService SCHEDULER = newScheduler("api-limiter-waiters");
+
+    private Waiters() {}
+
+    static ScheduledExecutorService scheduler() {
+        return SCHEDULER;
+    }
+
+    /**
+     * It creates a scheduler with a single daemon thread, which forgets the tasks cancelled.
+     * @param name the name of the thread
+     * @return the scheduler
+     */
+    static ScheduledExecutorService newScheduler(String name) {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+}
@@ -0,0 +1,33 @@
+package com.dinuberinde.api.limiter.internal;
+
+/**
+ * Helper to pack the number of calls and the window start time made by a client for an API
+ * into a single long, so that the state of a client can be updated atomically with compare-and-set.
+ * The low {@link #CALLS_BITS} bits hold the number of calls, the remaining bits hold the time,
+ * in milliseconds, relative to the epoch of the limiter. The value 0 represents a client without calls.
+ */
+final class ApiCall {
+    /**
+     * The number of bits used to store the number of calls.
+     */
+    static final int CALLS_BITS = 24;
+
+    /**
+     * The maximum number of calls that can be stored.
+     */
+    static final int MAX_CALLS = (1 << CALLS_BITS) - 1;
+
+    private ApiCall() {}
+
+    static long of(int numberOfCalls, long time) {
+        return (time << CALLS_BITS) | numberOfCalls;
+    }
+
+    static long getTime(long apiCall) {
+        return apiCall >>> CALLS_BITS;
+    }
+
+    static int getNumberOfCalls(long apiCall) {
+        return (int) (apiCall & MAX_CALLS);
+    }
+}
@@ -0,0 +1,58 @@
+package com.dinuberinde.api.limiter.internal;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The limiters of the clients of an API, with the counter of the calls of unknown clients.
+ * The limiters never change, while the counter survives the registration of new clients of the API.
+ */
+@ThreadSafe
+public final class ClientLimiters {
+    private final Map<String, Limiter> limiters;
+    private final LongAdder unknownClients;
+
+    ClientLimiters(Map<String, Limiter> limiters, LongAdder unknownClients) {
+        this.limiters = Collections.unmodifiableMap(limiters);
+        this.unknownClients = unknownClients;
+    }
+
+    /**
+     * It returns the limiter of a client.
+     * @param client the client
+     * @return the limiter, or null if the client is not registered
+     */
+    public Limiter get(String client) {
+        return limiters.get(client);
+    }
+
+    /**
+     * It returns the limiters by client.
+     * @return the unmodifiable limiters by client
+     */
+    public Map<String, Limiter> getLimiters() {
+        return limiters;
+    }
+
+    /**
+     * It counts a call of an unknown client.
+     */
+    public void unknownClient() {
+        unknownClients.increment();
+    }
+
+    /**
+     * It returns the number of calls of unknown clients.
+     * @return the number of calls
+     */
+    public long getUnknownClients() {
+        return unknownClients.sum();
+    }
+
+    LongAdder getUnknownClientsCounter() {
+        return unknownClients;
+    }
+}
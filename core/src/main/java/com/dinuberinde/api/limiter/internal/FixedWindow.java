@@ -0,0 +1,95 @@
+package com.dinuberinde.api.limiter.internal;
+
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import net.jcip.annotations.Immutable;
+
+/**
+ * The fixed window algorithm: a client can make max calls within a timeframe starting at its first call.
+ * The state of a client is a packed {@link ApiCall}.
+ */
+@Immutable
+final class FixedWindow extends RateAlgorithm {
+    private final ApiConfig apiConfig;
+
+    FixedWindow(ApiConfig apiConfig) {
+        if (apiConfig.getMaxCalls() > ApiCall.MAX_CALLS) {
+            throw new ApiLimiterException(String.format("Max calls of API %s cannot exceed %d", apiConfig.getApiName(), ApiCall.MAX_CALLS));
+        }
+
+        this.apiConfig = apiConfig;
+    }
+
+    @Override
+    long acquire(long apiCall, long now, int permits) {
+        if (apiCall == 0 || timeframeExpired(apiCall, now)) {
+            return permits > apiConfig.getMaxCalls() ? REJECTED : ApiCall.of(permits, now);
+        } else if (callLimitExceeded(apiCall, permits)) {
+            return REJECTED;
+        } else {
+            return apiCall + permits;
+        }
+    }
+
+    @Override
+    boolean isIdle(long apiCall, long now) {
+        return apiCall == 0 || timeframeExpired(apiCall, now);
+    }
+
+    @Override
+    long waitTime(long apiCall, long now, int permits) {
+        if (permits > apiConfig.getMaxCalls()) {
+            return NEVER;
+        } else if (acquire(apiCall, now, permits) != REJECTED) {
+            return 0;
+        } else {
+            return ApiCall.getTime(apiCall) + apiConfig.getTimeFrame() - now;
+        }
+    }
+
+    @Override
+    long remaining(long apiCall, long now) {
+        return isIdle(apiCall, now) ? apiConfig.getMaxCalls() : Math.max(0, apiConfig.getMaxCalls() - ApiCall.getNumberOfCalls(apiCall));
+    }
+
+    @Override
+    long resetTime(long apiCall, long now) {
+        return isIdle(apiCall, now) ? 0 : ApiCall.getTime(apiCall) + apiConfig.getTimeFrame() - now;
+    }
+
+    @Override
+    long release(long apiCall, long now, int permits) {
+        if (isIdle(apiCall, now)) {
+            return apiCall;
+        }
+
+        return ApiCall.of(Math.max(0, ApiCall.getNumberOfCalls(apiCall) - permits), ApiCall.getTime(apiCall));
+    }
+
+    @Override
+    long rebase(long apiCall, long from, long to) {
+        long time = ApiCall.getTime(apiCall) + to - from;
+        return time < 0 ? 0 : ApiCall.of(ApiCall.getNumberOfCalls(apiCall), time);
+    }
+
+    /**
+     * It checks whether the current API calls exceed the number of maximum calls of the configured API.
+     * @param apiCall the packed api call
+     * @param permits the number of current calls
+     * @return true if the current API calls exceed the number of maximum calls, false otherwise
+     */
+    private boolean callLimitExceeded(long apiCall, int permits) {
+        return (long) ApiCall.getNumberOfCalls(apiCall) + permits > apiConfig.getMaxCalls();
+    }
+
+    /**
+     * It checks whether the timeframe of the current API call is not expired, hence it checks whether
+     * the timeframe of the call is eligible with respect to the configured timeframe of the API.
+     * @param apiCall the packed api call
+     * @param now the current time relative to the epoch of the limiter
+     * @return true if the timeframe expired, false otherwise
+     */
+    private boolean timeframeExpired(long apiCall, long now) {
+        return now - ApiCall.getTime(apiCall) >= apiConfig.getTimeFrame();
+    }
+}
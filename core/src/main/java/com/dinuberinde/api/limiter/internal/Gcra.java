@@ -0,0 +1,105 @@
+package com.dinuberinde.api.limiter.internal;
+
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import net.jcip.annotations.Immutable;
+
+/**
+ * The generic cell rate algorithm: calls are spaced by an emission interval of timeframe / max calls,
+ * and up to burst calls can be made at once. The state of a client is its theoretical arrival time,
+ * in nanoseconds relative to the epoch of the limiter, that is the time at which the client would be idle again.
+ */
+@Immutable
+final class Gcra extends RateAlgorithm {
+    private final static long NANOS_PER_MILLI = 1_000_000;
+
+    /**
+     * The max tolerance, in nanoseconds (about 73 years), low enough that adding it to a theoretical arrival time
+     * or to the current time never overflows.
+     */
+    private final static long MAX_TOLERANCE = Long.MAX_VALUE / 4;
+
+    /**
+     * The time between two calls, in nanoseconds.
+     */
+    private final long emissionInterval;
+
+    /**
+     * The max distance of the theoretical arrival time from the current time, in nanoseconds.
+     */
+    private final long tolerance;
+
+    /**
+     * The max number of calls that fit in the tolerance. Larger requests are rejected up front,
+     * so that their cost never overflows.
+     */
+    private final long maxPermits;
+
+    Gcra(ApiConfig apiConfig) {
+        if (apiConfig.getMaxCalls() <= 0) {
+            throw new ApiLimiterException(String.format("Max calls of API %s must be positive", apiConfig.getApiName()));
+        }
+
+        this.emissionInterval = Math.max(1, multiply(apiConfig.getTimeFrame(), NANOS_PER_MILLI) / apiConfig.getMaxCalls());
+        this.tolerance = multiply(emissionInterval, apiConfig.getBurst());
+        this.maxPermits = tolerance / emissionInterval;
+    }
+
+    /**
+     * It multiplies two non-negative numbers, saturating at {@link #MAX_TOLERANCE}.
+     */
+    private static long multiply(long a, long b) {
+        return b != 0 && a > MAX_TOLERANCE / b ? MAX_TOLERANCE : Math.min(MAX_TOLERANCE, a * b);
+    }
+
+    @Override
+    long acquire(long arrivalTime, long now, int permits) {
+        if (permits > maxPermits) {
+            return REJECTED;
+        }
+
+        long nowNanos = now * NANOS_PER_MILLI;
+        long next = Math.max(arrivalTime, nowNanos) + emissionInterval * permits;
+
+        return next - nowNanos > tolerance ? REJECTED : next;
+    }
+
+    @Override
+    long waitTime(long arrivalTime, long now, int permits) {
+        if (permits > maxPermits) {
+            return NEVER;
+        }
+
+        long nowNanos = now * NANOS_PER_MILLI;
+        long waitNanos = Math.max(arrivalTime, nowNanos) + emissionInterval * permits - tolerance - nowNanos;
+        return waitNanos <= 0 ? 0 : (waitNanos + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    long remaining(long arrivalTime, long now) {
+        long delay = Math.max(0, arrivalTime - now * NANOS_PER_MILLI);
+        return Math.max(0, (tolerance - delay) / emissionInterval);
+    }
+
+    @Override
+    long resetTime(long arrivalTime, long now) {
+        long delay = arrivalTime - now * NANOS_PER_MILLI;
+        return delay <= 0 ? 0 : (delay + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    long release(long arrivalTime, long now, int permits) {
+        return isIdle(arrivalTime, now) ? arrivalTime : Math.max(0, arrivalTime - emissionInterval * Math.min(permits, maxPermits));
+    }
+
+    @Override
+    long rebase(long arrivalTime, long from, long to) {
+        long moved = arrivalTime + (to - from) * NANOS_PER_MILLI;
+        return moved < 0 ? 0 : moved;
+    }
+
+    @Override
+    boolean isIdle(long arrivalTime, long now) {
+        return arrivalTime <= now * NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,46 @@
+package com.dinuberinde.api.limiter.internal;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds with power of two buckets: the bucket i counts the latencies
+ * in [2^i, 2^(i+1)), the bucket 0 also counts the latency 0. Recording a latency never blocks.
+ */
+@ThreadSafe
+public final class LatencyHistogram {
+    /**
+     * The number of buckets.
+     */
+    public final static int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * It records a latency.
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        buckets[nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos)].increment();
+    }
+
+    /**
+     * It returns the number of latencies recorded in each bucket.
+     * @return the counts of the buckets
+     */
+    public long[] getCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+
+        return counts;
+    }
+}
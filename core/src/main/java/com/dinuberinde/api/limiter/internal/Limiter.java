@@ -0,0 +1,1451 @@
+package com.dinuberinde.api.limiter.internal;
+
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.Clock;
+import com.dinuberinde.api.limiter.ConsumeResult;
+import com.dinuberinde.api.limiter.StateStore;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class to limit API calls that a client can make within a certain timeframe.
+ * The state of each client is a single long updated with compare-and-set by the configured {@link RateAlgorithm},
+ * hence consuming never blocks and never allocates after the first call of a client.
+ * Clients whose timeframe expired are reclaimed incrementally whenever a new client is tracked.
+ * If the limiter has a {@link SlotTable}, the states of the clients are kept in the table instead,
+ * and idle clients are replaced by new ones.
+ * If the limiter has a {@link StateStore}, the calls allowed locally are also checked against the store,
+ * so that the max calls are enforced across all the limiters sharing it, and released locally if the store rejects them.
+ * If the API configuration has stripes, its max calls are split among child limiters, one for each stripe,
+ * and each thread consumes from its own stripe first, borrowing from the next stripes when it runs dry.
+ * If the limiter has parents, the calls it allows are then charged to each parent in order,
+ * and released from this limiter and the previous parents if a parent rejects them.
+ * Since every charge is a compare-and-set, checking a chain of limiters never blocks nor deadlocks.
+ */
+@ThreadSafe
+public final class Limiter {
+    /**
+     * The state of a client removed from the limiter.
+     */
+    private final static long EVICTED = Long.MIN_VALUE;
+
+    /**
+     * The result of acquiring API calls on behalf of a client that cannot be tracked, because the limiter reached its max clients.
+     * It is never the complement of a state, since states are never {@link Long#MAX_VALUE}.
+     */
+    private final static long NO_ROOM = Long.MIN_VALUE;
+
+    /**
+     * The number of clients inspected by a sweep.
+     */
+    private final static int SWEEP_BATCH = 4;
+
+    /**
+     * The number of clients inspected by a sweep when the limiter is full.
+     */
+    private final static int FULL_SWEEP_BATCH = 64;
+
+    /**
+     * The result of {@link Binding#consumeOrWait(int)} if the calls can never be consumed.
+     */
+    public final static long NEVER = RateAlgorithm.NEVER;
+
+    /**
+     * The number of times per timeframe that a waiting client retries when the limiter reached its max clients.
+     */
+    private final static int MAX_CLIENTS_POLLS = 16;
+
+    /**
+     * The time between the epoch of a limiter and its creation, in milliseconds, so that the states of a snapshot
+     * taken before the creation can be restored without negative times. It is a whole number of days, so that the windows
+     * of the sliding window algorithm still start at the creation of the limiter for the timeframes dividing a day.
+     */
+    final static long EPOCH_HEADROOM = 25L * 24 * 60 * 60 * 1000;
+
+    /**
+     * The kinds of the states of the clients in a snapshot: keyed by client, or by the key of the client in a slot table.
+     */
+    private final static byte CLIENT_STATES = 0;
+    private final static byte SLOT_STATES = 1;
+
+    private final static Limiter[] NO_PARENTS = new Limiter[0];
+
+    private final ConcurrentMap<String, AtomicLong> clients;
+    private final AtomicInteger numberOfClients;
+    private final AtomicBoolean sweeping;
+    private LongAdder allowed;
+    private LongAdder rejected;
+    @GuardedBy("sweeping")
+    private Iterator<Map.Entry<String, AtomicLong>> sweepCursor;
+    private final ApiConfig apiConfig;
+    private final RateAlgorithm algorithm;
+    private final Clock clock;
+    private final long epoch;
+    private final RemoteLimit remote;
+    private final SlotTable table;
+    private final Limiter[] stripes;
+    private final Limiter[] parents;
+
+    /**
+     * The limiter whose states this limiter shares, possibly itself. See {@link #withParents(Limiter[])}.
+     */
+    private final Limiter origin;
+
+    public Limiter(ApiConfig apiConfig) {
+        this(apiConfig, Clock.monotonic());
+    }
+
+    public Limiter(ApiConfig apiConfig, Clock clock) {
+        this(apiConfig, clock, null, 0);
+    }
+
+    /**
+     * Limiter checking the calls against a state store.
+     * @param apiConfig the api configuration, with the fixed window algorithm if the store is not null
+     * @param clock the clock
+     * @param store the store, or null to limit the calls locally only
+     * @param storeTimeout the max time to wait for the store, in milliseconds
+     */
+    public Limiter(ApiConfig apiConfig, Clock clock, StateStore store, long storeTimeout) {
+        this(apiConfig, clock, store, storeTimeout, null);
+    }
+
+    /**
+     * Limiter keeping the states of its clients in a slot table, whose capacity bounds the clients
+     * instead of the max clients of the api configuration.
+     * @param apiConfig the api configuration, with the fixed window algorithm if the store is not null
+     * @param clock the clock, with the same origin as the clock which created the table
+     * @param store the store, or null to limit the calls locally only
+     * @param storeTimeout the max time to wait for the store, in milliseconds
+     * @param table the table, or null to keep the states of the clients in the heap
+     */
+    public Limiter(ApiConfig apiConfig, Clock clock, StateStore store, long storeTimeout, SlotTable table) {
+        this(apiConfig, clock, store, storeTimeout, table, table == null ? clock.millis() - EPOCH_HEADROOM : table.getEpoch());
+    }
+
+    private Limiter(ApiConfig apiConfig, Clock clock, StateStore store, long storeTimeout, SlotTable table, long epoch) {
+        this.clients = new ConcurrentHashMap<>();
+        this.numberOfClients = new AtomicInteger();
+        this.sweeping = new AtomicBoolean();
+        this.allowed = new LongAdder();
+        this.rejected = new LongAdder();
+        this.apiConfig = apiConfig;
+        this.algorithm = RateAlgorithm.of(apiConfig);
+        this.clock = clock;
+        this.epoch = epoch;
+        this.remote = store == null ? null : new RemoteLimit(apiConfig, store, storeTimeout);
+        this.table = table;
+        this.stripes = table == null && apiConfig.getStripes() > 1 ? stripesOf(apiConfig, clock, epoch) : null;
+        this.parents = NO_PARENTS;
+        this.origin = this;
+    }
+
+    /**
+     * Limiter sharing the states, the counters and the state store of another limiter, with other parents.
+     * @param limiter the other limiter
+     * @param parents the parents, in the order they are charged
+     */
+    private Limiter(Limiter limiter, Limiter[] parents) {
+        this.clients = limiter.clients;
+        this.numberOfClients = limiter.numberOfClients;
+        this.sweeping = limiter.sweeping;
+        this.allowed = limiter.allowed;
+        this.rejected = limiter.rejected;
+        this.apiConfig = limiter.apiConfig;
+        this.algorithm = limiter.algorithm;
+        this.clock = limiter.clock;
+        this.epoch = limiter.epoch;
+        this.remote = limiter.remote;
+        this.table = limiter.table;
+        this.stripes = limiter.stripes;
+        this.parents = parents;
+        this.origin = limiter.origin;
+    }
+
+    /**
+     * It builds the limiters of the stripes of an API, each limiting its share of the max calls and of the burst,
+     * with the same epoch as the limiter of the API so that their states can be written together in snapshots.
+     * @param apiConfig the api configuration
+     * @param clock the clock
+     * @param epoch the epoch
+     * @return the limiters of the stripes
+     */
+    private static Limiter[] stripesOf(ApiConfig apiConfig, Clock clock, long epoch) {
+        Limiter[] stripes = new Limiter[apiConfig.getStripes()];
+        for (int i = 0; i < stripes.length; i++) {
+            int maxCalls = apiConfig.getMaxCalls() / stripes.length + (i < apiConfig.getMaxCalls() % stripes.length ? 1 : 0);
+            int burst = Math.max(1, (int) ((long) apiConfig.getBurst() * maxCalls / apiConfig.getMaxCalls()));
+            ApiConfig stripe = new ApiConfig(apiConfig.getApiName(), maxCalls, apiConfig.getTimeFrame(), apiConfig.getClient())
+                    .withAlgorithm(apiConfig.getAlgorithm())
+                    .withBurst(burst);
+
+            stripes[i] = new Limiter(stripe, clock, null, 0, null, epoch);
+        }
+
+        return stripes;
+    }
+
+    public ApiConfig getApiConfig() {
+        return apiConfig;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * It returns the client whose calls are counted by this limiter for the calls of a client:
+     * the client itself if this limiter limits each client, otherwise the client of its configuration.
+     * @param client the client
+     * @return the client whose calls are counted
+     */
+    public String clientOf(String client) {
+        return apiConfig.isPerClient() ? client : apiConfig.getClient();
+    }
+
+    /**
+     * It returns a limiter charging its calls to the given limiters of the parent APIs, which limit the APIs for all clients.
+     * The limiter shares the states and the counters of this limiter, which is left unchanged, so that the limiters
+     * of a published registry keep their parents until a new registry is published.
+     * @param parents the parents, in the order they are charged
+     * @return this limiter if it already has the same parents, otherwise a new limiter
+     */
+    Limiter withParents(Limiter[] parents) {
+        if (parents.length == this.parents.length) {
+            int i = 0;
+            while (i < parents.length && parents[i].origin == this.parents[i].origin) {
+                i++;
+            }
+
+            if (i == parents.length) {
+                return this;
+            }
+        }
+
+        Limiter[] origins = new Limiter[parents.length];
+        for (int i = 0; i < parents.length; i++) {
+            origins[i] = parents[i].origin;
+        }
+
+        return new Limiter(this, origins);
+    }
+
+    /**
+     * It makes this limiter count the allowed and rejected requests with the counters of the limiter it replaces,
+     * so that the metrics of an API survive its registration again. It must be called before this limiter is published.
+     * The previous limiter keeps counting the requests that it still serves.
+     * @param previous the previous limiter
+     */
+    void keepCounters(Limiter previous) {
+        this.allowed = previous.allowed;
+        this.rejected = previous.rejected;
+    }
+
+    /**
+     * It consumes an API call on behalf of a client.
+     * @param client the client
+     * @return true if consumed successfully, false if the current API call exceeds
+     * the configured API maximum calls within the configured API timeframe
+     * or if the client cannot be tracked because the limiter reached its max clients
+     */
+    public boolean consume(String client) {
+        return consume(client, 1);
+    }
+
+    /**
+     * It consumes some API calls at once on behalf of a client: either all of them or none.
+     * @param client the client
+     * @param permits the number of calls, positive
+     * @return true if consumed successfully, false if the current API calls exceed
+     * the configured API maximum calls within the configured API timeframe
+     * or if the client cannot be tracked because the limiter reached its max clients
+     */
+    public boolean consume(String client, int permits) {
+        int stripe = acquire(client, permits);
+        boolean consumed = stripe >= 0 && acquireParents(client, stripe, permits, true) == 0;
+        (consumed ? allowed : rejected).increment();
+        return consumed;
+    }
+
+    /**
+     * It consumes some API calls at once on behalf of a client: either all of them or none,
+     * describing the outcome and the quota left to the client in a result.
+     * @param client the client
+     * @param permits the number of calls, positive
+     * @param result the result to fill
+     * @return true if consumed successfully, false otherwise, see {@link #consume(String, int)}
+     */
+    public boolean consume(String client, int permits, ConsumeResult result) {
+        long now = now();
+        int stripe = 0;
+        boolean consumed;
+
+        if (stripes != null) {
+            stripe = acquireStripe(permits);
+            consumed = stripe >= 0;
+            describeStripes(result, consumed, permits);
+        } else {
+            long acquired = table == null ? acquire(client, now, permits) : acquireSlot(SlotTable.keyOf(client), now, permits);
+            consumed = acquired >= 0;
+            if (acquired == NO_ROOM) {
+                result.set(false, 0, maxClientsWaitTime(), maxClientsWaitTime());
+            } else {
+                describe(result, consumed, consumed ? acquired : ~acquired, now, permits);
+            }
+        }
+
+        long waitTime = 0;
+        if (consumed) {
+            waitTime = acquireRemote(client, stripe, permits, now);
+        }
+
+        if (consumed && waitTime == 0) {
+            waitTime = acquireParents(client, stripe, permits, true);
+        }
+
+        if (consumed && waitTime != 0) {
+            // the calls have been released, hence the quota is described again
+            consumed = false;
+            if (stripes != null) {
+                describeStripes(result, false, permits);
+            } else {
+                describe(result, false, peekState(client), now, permits);
+            }
+
+            result.set(false, result.getRemaining(), result.getResetTime(), waitTime);
+        }
+
+        (consumed ? allowed : rejected).increment();
+        return consumed;
+    }
+
+    /**
+     * It describes whether an API call could be consumed now on behalf of a client and the quota left to the client,
+     * without consuming it nor tracking the client.
+     * @param client the client
+     * @param result the result to fill
+     */
+    public void peek(String client, ConsumeResult result) {
+        if (stripes != null) {
+            describeStripes(result, false, 1);
+            result.set(result.getRetryAfter() == 0, result.getRemaining(), result.getResetTime(), result.getRetryAfter());
+        } else {
+            long now = now();
+            long state = peekState(client);
+            long retryAfter = algorithm.waitTime(state, now, 1);
+            describe(result, retryAfter == 0, state, now, 1);
+        }
+    }
+
+    /**
+     * It describes the outcome of consuming API calls from a state.
+     * @param result the result to fill
+     * @param consumed true if the calls were consumed
+     * @param state the state which allowed the calls if consumed, otherwise the state which rejected them
+     * @param now the current time relative to the epoch of this limiter
+     * @param permits the number of calls
+     */
+    private void describe(ConsumeResult result, boolean consumed, long state, long now, int permits) {
+        result.set(consumed, algorithm.remaining(state, now), algorithm.resetTime(state, now), consumed ? 0 : algorithm.waitTime(state, now, permits));
+    }
+
+    /**
+     * It describes the outcome of consuming API calls from the stripes: the calls left in all the stripes,
+     * the time after which all the stripes are idle and the shortest time to wait for a stripe.
+     * The states of the stripes are read one after the other.
+     * @param result the result to fill
+     * @param consumed true if the calls were consumed
+     * @param permits the number of calls
+     */
+    private void describeStripes(ConsumeResult result, boolean consumed, int permits) {
+        long remaining = 0;
+        long resetTime = 0;
+        long retryAfter = NEVER;
+
+        for (Limiter stripe : stripes) {
+            long now = stripe.now();
+            long state = stripe.peekState(stripe.apiConfig.getClient());
+            remaining += stripe.algorithm.remaining(state, now);
+            resetTime = Math.max(resetTime, stripe.algorithm.resetTime(state, now));
+
+            long waitTime = stripe.algorithm.waitTime(state, now, permits);
+            if (waitTime != NEVER && (retryAfter == NEVER || waitTime < retryAfter)) {
+                retryAfter = waitTime;
+            }
+        }
+
+        result.set(consumed, remaining, resetTime, consumed ? 0 : retryAfter);
+    }
+
+    /**
+     * It returns the state of a client without tracking it.
+     * @param client the client
+     * @return the state, 0 if the client is not tracked
+     */
+    private long peekState(String client) {
+        if (table == null) {
+            AtomicLong state = clients.get(client);
+            long current = state == null ? 0 : state.get();
+            return current == EVICTED ? 0 : current;
+        }
+
+        long key = SlotTable.keyOf(client);
+        int slot = table.find(key);
+        long state = slot < 0 ? 0 : table.getState(slot);
+        return slot < 0 || table.getKey(slot) != key ? 0 : state;
+    }
+
+    /**
+     * It charges some API calls, already acquired from a client of this limiter, to the parents of this limiter in order.
+     * If a parent rejects them, the calls are released from the client and from the previous parents.
+     * @param client the client
+     * @param stripe the stripe of this limiter which served the calls, 0 without stripes
+     * @param permits the number of calls
+     * @param counting true to count the rejection by the parent which rejects the calls, false if the client
+     * is going to wait and retry, in which case the rejection is counted once it gives up
+     * @return 0 if all the parents allowed the calls, otherwise the time to wait of the parent which rejected them,
+     * or {@link #NEVER} if they exceed its limit
+     */
+    private long acquireParents(String client, int stripe, int permits, boolean counting) {
+        Limiter[] parents = this.parents;
+        if (parents.length == 0) {
+            return 0;
+        }
+
+        long waitTime = acquireParents(parents, 0, client, permits, counting);
+        if (waitTime != 0) {
+            release(client, stripe, permits);
+        }
+
+        return waitTime;
+    }
+
+    /**
+     * It charges some API calls to the parents from the given one on, in order. Each parent is charged by a nested call,
+     * which keeps the stripe of the parent that served the calls, to release them from it if a later parent rejects them.
+     * @param parents the parents
+     * @param next the index of the first parent to charge
+     * @param client the client of the calls
+     * @param permits the number of calls
+     * @param counting true to count the rejection by the parent which rejects the calls
+     * @return 0 if the parents allowed the calls, otherwise the time to wait of the parent which rejected them,
+     * or {@link #NEVER} if they exceed its limit
+     */
+    private static long acquireParents(Limiter[] parents, int next, String client, int permits, boolean counting) {
+        if (next == parents.length) {
+            return 0;
+        }
+
+        Limiter parent = parents[next];
+        String parentClient = parent.clientOf(client);
+        long outcome = parent.acquireOrWait(parentClient, permits);
+        if (outcome < 0) {
+            if (counting) {
+                parent.rejected.increment();
+            }
+
+            return waitTimeOf(outcome);
+        }
+
+        long waitTime = acquireParents(parents, next + 1, client, permits, counting);
+        if (waitTime != 0) {
+            parent.release(parentClient, (int) outcome, permits);
+        } else {
+            parent.allowed.increment();
+        }
+
+        return waitTime;
+    }
+
+    /**
+     * It releases some API calls acquired by a client, as if they had not been consumed.
+     * The calls already charged to the state store are not released.
+     * @param client the client
+     * @param stripe the stripe which served the calls, 0 without stripes
+     * @param permits the number of calls
+     */
+    private void release(String client, int stripe, int permits) {
+        long now = now();
+        if (stripes != null) {
+            Limiter served = stripes[stripe];
+            served.release(served.apiConfig.getClient(), 0, permits);
+        } else if (table == null) {
+            AtomicLong state = clients.get(client);
+            while (state != null) {
+                long current = state.get();
+                if (current == EVICTED || current == 0) {
+                    return;
+                }
+
+                long next = algorithm.release(current, now, permits);
+                if (next == current || state.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        } else {
+            long key = SlotTable.keyOf(client);
+            while (true) {
+                int slot = table.find(key);
+                if (slot < 0) {
+                    return;
+                }
+
+                long current = table.getState(slot);
+                if (table.getKey(slot) != key) {
+                    continue;
+                }
+
+                long next = algorithm.release(current, now, permits);
+                if (next == current || table.compareAndSetState(slot, current, next)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * It acquires some API calls on behalf of a client, from this limiter and the state store but not from the parents.
+     * @param client the client
+     * @param permits the number of calls
+     * @return the stripe which served the calls, 0 without stripes, or -1 if they were rejected
+     */
+    private int acquire(String client, int permits) {
+        long now = now();
+        int stripe;
+        if (stripes != null) {
+            stripe = acquireStripe(permits);
+        } else {
+            stripe = (table == null ? acquire(client, now, permits) : acquireSlot(SlotTable.keyOf(client), now, permits)) >= 0 ? 0 : -1;
+        }
+
+        return stripe >= 0 && acquireRemote(client, stripe, permits, now) == 0 ? stripe : -1;
+    }
+
+    /**
+     * It charges some API calls, already acquired from a client of this limiter, to the state store, if any.
+     * If the store rejects them, they are released from the client, so that they do not count locally either.
+     * @param client the client
+     * @param stripe the stripe which served the calls, 0 without stripes
+     * @param permits the number of calls
+     * @param now the current time relative to the epoch of this limiter
+     * @return 0 if the store allowed the calls or there is no store, otherwise the time in milliseconds
+     * before the calls could be consumed
+     */
+    private long acquireRemote(String client, int stripe, int permits, long now) {
+        if (remote == null) {
+            return 0;
+        }
+
+        long waitTime = remote.consume(client, permits, now);
+        if (waitTime != 0) {
+            release(client, stripe, permits);
+        }
+
+        return waitTime;
+    }
+
+    /**
+     * It acquires some API calls from the stripe of the current thread, or from the next stripes if it ran dry.
+     * @param permits the number of calls
+     * @return the stripe which served the calls, or -1 if no stripe has room for all the calls
+     */
+    private int acquireStripe(int permits) {
+        int home = stripe();
+        for (int i = 0; i < stripes.length; i++) {
+            int index = (home + i) % stripes.length;
+            Limiter stripe = stripes[index];
+            if (stripe.acquire(stripe.apiConfig.getClient(), permits) >= 0) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * It acquires some API calls from the stripe of the current thread or from the next stripes,
+     * or returns the time to wait before a stripe could have room for them.
+     * @param permits the number of calls
+     * @return the outcome: the stripe which served the calls if acquired, otherwise the shortest time to wait,
+     * or {@link #NEVER} if the calls exceed the share of the max calls of every stripe, see {@link #rejected(long)}
+     */
+    private long acquireStripeOrWait(int permits) {
+        int home = stripe();
+        long waitTime = NEVER;
+        for (int i = 0; i < stripes.length; i++) {
+            int index = (home + i) % stripes.length;
+            Limiter stripe = stripes[index];
+            long outcome = stripe.acquireOrWait(stripe.apiConfig.getClient(), permits);
+            if (outcome >= 0) {
+                return index;
+            }
+
+            long stripeWaitTime = waitTimeOf(outcome);
+            if (stripeWaitTime != NEVER && (waitTime == NEVER || stripeWaitTime < waitTime)) {
+                waitTime = stripeWaitTime;
+            }
+        }
+
+        return rejected(waitTime);
+    }
+
+    /**
+     * It returns the outcome of API calls rejected by a limiter, negative so that it is not confused
+     * with the stripe which served calls that were acquired.
+     * @param waitTime the time to wait before the calls could be acquired, positive, or {@link #NEVER}
+     * @return the outcome
+     */
+    private static long rejected(long waitTime) {
+        return -2 - waitTime;
+    }
+
+    /**
+     * It returns the time to wait before API calls could be acquired, from the outcome of their rejection.
+     * @param outcome the outcome, see {@link #rejected(long)}
+     * @return the time to wait in milliseconds, or {@link #NEVER}
+     */
+    private static long waitTimeOf(long outcome) {
+        return -2 - outcome;
+    }
+
+    /**
+     * It returns the stripe of the current thread, so that a thread keeps updating the same stripe.
+     * @return the index of the stripe
+     */
+    private int stripe() {
+        return (int) (Thread.currentThread().getId() % stripes.length);
+    }
+
+    /**
+     * It acquires some API calls from the state of a client, tracking the client if it is new.
+     * @param client the client
+     * @param now the current time relative to the epoch of this limiter
+     * @param permits the number of calls
+     * @return the next state if consumed successfully, the complement of the state which rejected the calls
+     * if they exceed the limit, or {@link #NO_ROOM} if the client cannot be tracked because the limiter reached its max clients
+     */
+    private long acquire(String client, long now, int permits) {
+        while (true) {
+            AtomicLong state = stateOf(client, now);
+            if (state == null) {
+                return NO_ROOM;
+            }
+
+            long acquired = acquire(client, state, now, permits);
+            if (acquired != EVICTED) {
+                return acquired;
+            }
+        }
+    }
+
+    /**
+     * It acquires some API calls from the state of a client.
+     * @param client the client
+     * @param state the state of the client
+     * @param now the current time relative to the epoch of this limiter
+     * @param permits the number of calls
+     * @return the next state if consumed successfully, the complement of the state which rejected the calls
+     * if they exceed the limit, or {@link #EVICTED} if the state was evicted and the client must be looked up again
+     */
+    private long acquire(String client, AtomicLong state, long now, int permits) {
+        while (true) {
+            long current = state.get();
+            if (current == EVICTED) {
+                remove(client, state);
+                return EVICTED;
+            }
+
+            long next = algorithm.acquire(current, now, permits);
+            if (next == RateAlgorithm.REJECTED) {
+                return ~current;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * It acquires some API calls from the slot of a client in the table.
+     * @param key the key of the client
+     * @param now the current time relative to the epoch of this limiter
+     * @param permits the number of calls
+     * @return the next state if consumed successfully, the complement of the state which rejected the calls
+     * if they exceed the limit, or {@link #NO_ROOM} if the client cannot be tracked because the table is full
+     */
+    private long acquireSlot(long key, long now, int permits) {
+        while (true) {
+            int slot = table.slotOf(key, algorithm, now);
+            if (slot < 0) {
+                return NO_ROOM;
+            }
+
+            long current = table.getState(slot);
+            if (table.getKey(slot) != key) {
+                // the slot was handed over to another client meanwhile
+                continue;
+            }
+
+            long next = algorithm.acquire(current, now, permits);
+            if (next == RateAlgorithm.REJECTED) {
+                return ~current;
+            }
+
+            if (table.compareAndSetState(slot, current, next)) {
+                if (table.owns(slot, key)) {
+                    return next;
+                }
+
+                // the slot was handed over to another client before the update: the calls go to the new slot of the client
+                undo(slot, now, permits);
+            }
+        }
+    }
+
+    /**
+     * It releases some API calls charged to a slot of the table that was handed over to another client meanwhile.
+     * @param slot the slot
+     * @param now the current time relative to the epoch of this limiter
+     * @param permits the number of calls
+     */
+    private void undo(int slot, long now, int permits) {
+        while (true) {
+            long current = table.getState(slot);
+            long next = algorithm.release(current, now, permits);
+            if (next == current || table.compareAndSetState(slot, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * It acquires some API calls on behalf of a client, from this limiter and the state store but not from the parents,
+     * or returns the time to wait before they could be acquired.
+     * @param client the client
+     * @param permits the number of calls
+     * @return the outcome: the stripe which served the calls if acquired, 0 without stripes, otherwise the time to wait
+     * in milliseconds, or {@link #NEVER} if the calls exceed the limit, see {@link #rejected(long)}
+     */
+    private long acquireOrWait(String client, int permits) {
+        long now = now();
+        int stripe = 0;
+        long waitTime;
+
+        if (stripes != null) {
+            long outcome = acquireStripeOrWait(permits);
+            if (outcome < 0) {
+                return outcome;
+            }
+
+            stripe = (int) outcome;
+            waitTime = 0;
+        } else if (table == null) {
+            while (true) {
+                AtomicLong state = stateOf(client, now);
+                if (state == null) {
+                    waitTime = maxClientsWaitTime();
+                    break;
+                }
+
+                waitTime = acquireOrWait(client, state, now, permits);
+                if (waitTime != EVICTED) {
+                    break;
+                }
+            }
+        } else {
+            waitTime = acquireSlotOrWait(SlotTable.keyOf(client), now, permits);
+        }
+
+        if (waitTime == 0) {
+            waitTime = acquireRemote(client, stripe, permits, now);
+        }
+
+        return waitTime == 0 ? stripe : rejected(waitTime);
+    }
+
+    /**
+     * It acquires some API calls from the state of a client, or returns the time to wait before they could be acquired.
+     * @param client the client
+     * @param state the state of the client
+     * @param now the current time relative to the epoch of this limiter
+     * @param permits the number of calls
+     * @return 0 if acquired, the time to wait in milliseconds otherwise, {@link #NEVER} if the calls exceed the limit,
+     * or {@link #EVICTED} if the state was evicted and the client must be looked up again
+     */
+    private long acquireOrWait(String client, AtomicLong state, long now, int permits) {
+        long acquired = acquire(client, state, now, permits);
+        if (acquired == EVICTED) {
+            return EVICTED;
+        }
+
+        // the state which rejected the calls is never ready for them
+        return acquired >= 0 ? 0 : algorithm.waitTime(~acquired, now, permits);
+    }
+
+    private long acquireSlotOrWait(long key, long now, int permits) {
+        long acquired = acquireSlot(key, now, permits);
+        if (acquired == NO_ROOM) {
+            return maxClientsWaitTime();
+        }
+
+        return acquired >= 0 ? 0 : algorithm.waitTime(~acquired, now, permits);
+    }
+
+    /**
+     * It binds a client of this limiter, to consume API calls on its behalf without looking it up.
+     * @param client the client
+     * @return the binding
+     */
+    public Binding bind(String client) {
+        return new Binding(client);
+    }
+
+    /**
+     * It consumes several groups of API calls on behalf of a client, updating the state of the client once.
+     * The groups are evaluated in order, and each group is consumed either entirely or not at all.
+     * @param client the client
+     * @param permits the number of calls of each group, positive
+     * @param consumed filled with the result of each group: true if consumed successfully, false otherwise
+     */
+    public void consumeAll(String client, int[] permits, boolean[] consumed) {
+        long now = now();
+        int[] served = null;
+        if (stripes != null) {
+            // the stripes which served the groups, to release them if the store or a parent rejects them
+            served = remote != null || parents.length > 0 ? new int[permits.length] : null;
+            for (int i = 0; i < permits.length; i++) {
+                int stripe = acquireStripe(permits[i]);
+                consumed[i] = stripe >= 0;
+                if (served != null) {
+                    served[i] = stripe;
+                }
+            }
+        } else if (table == null) {
+            acquireAll(client, permits, consumed, now);
+        } else {
+            acquireAllSlot(SlotTable.keyOf(client), permits, consumed, now);
+        }
+
+        if (remote != null) {
+            boolean[] acquired = Arrays.copyOf(consumed, permits.length);
+            remote.consumeAll(client, permits, consumed, now);
+            for (int i = 0; i < permits.length; i++) {
+                if (acquired[i] && !consumed[i]) {
+                    release(client, served == null ? 0 : served[i], permits[i]);
+                }
+            }
+        }
+
+        if (parents.length > 0) {
+            for (int i = 0; i < permits.length; i++) {
+                consumed[i] = consumed[i] && acquireParents(client, served == null ? 0 : served[i], permits[i], true) == 0;
+            }
+        }
+
+        for (int i = 0; i < permits.length; i++) {
+            (consumed[i] ? allowed : rejected).increment();
+        }
+    }
+
+    private void acquireAll(String client, int[] permits, boolean[] consumed, long now) {
+        while (true) {
+            AtomicLong state = stateOf(client, now);
+            if (state == null) {
+                Arrays.fill(consumed, 0, permits.length, false);
+                return;
+            }
+
+            long current = state.get();
+            if (current == EVICTED) {
+                remove(client, state);
+                continue;
+            }
+
+            long next = acquireAll(current, permits, consumed, now);
+            if (next == current || state.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private void acquireAllSlot(long key, int[] permits, boolean[] consumed, long now) {
+        while (true) {
+            int slot = table.slotOf(key, algorithm, now);
+            if (slot < 0) {
+                Arrays.fill(consumed, 0, permits.length, false);
+                return;
+            }
+
+            long current = table.getState(slot);
+            if (table.getKey(slot) != key) {
+                continue;
+            }
+
+            long next = acquireAll(current, permits, consumed, now);
+            if (next == current) {
+                return;
+            } else if (table.compareAndSetState(slot, current, next)) {
+                if (table.owns(slot, key)) {
+                    return;
+                }
+
+                int charged = 0;
+                for (int i = 0; i < permits.length; i++) {
+                    charged += consumed[i] ? permits[i] : 0;
+                }
+
+                undo(slot, now, charged);
+            }
+        }
+    }
+
+    /**
+     * It acquires several groups of API calls in order from a state.
+     * @param state the state
+     * @param permits the number of calls of each group
+     * @param consumed filled with the result of each group
+     * @param now the current time relative to the epoch of this limiter
+     * @return the next state
+     */
+    private long acquireAll(long state, int[] permits, boolean[] consumed, long now) {
+        long next = state;
+        for (int i = 0; i < permits.length; i++) {
+            long acquired = algorithm.acquire(next, now, permits[i]);
+            consumed[i] = acquired != RateAlgorithm.REJECTED;
+            if (consumed[i]) {
+                next = acquired;
+            }
+        }
+
+        return next;
+    }
+
+    /**
+     * It checks whether the states of the clients of this limiter are shared with other processes,
+     * hence they survive this process without snapshots.
+     * @return true if the states are shared, false otherwise
+     */
+    public boolean isShared() {
+        return table != null && table.isShared();
+    }
+
+    /**
+     * It writes the states of the clients of this limiter that are not idle.
+     * Each state is read atomically while consumers keep updating the others, without locks.
+     * @param out the output
+     * @throws IOException if the output fails
+     */
+    public void writeSnapshot(DataOutput out) throws IOException {
+        long now = now();
+        out.writeLong(SlotTable.fingerprint(apiConfig));
+        out.writeLong(now);
+
+        if (stripes != null) {
+            // the states of the stripes are keyed by the index of their stripe
+            out.writeByte(CLIENT_STATES);
+            for (int i = 0; i < stripes.length; i++) {
+                AtomicLong state = stripes[i].clients.get(apiConfig.getClient());
+                long current = state == null ? EVICTED : state.get();
+                if (current != EVICTED && !algorithm.isIdle(current, now)) {
+                    byte[] stripe = String.valueOf(i).getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(stripe.length);
+                    out.write(stripe);
+                    out.writeLong(current);
+                }
+            }
+        } else if (table == null) {
+            out.writeByte(CLIENT_STATES);
+            for (Map.Entry<String, AtomicLong> entry : clients.entrySet()) {
+                long state = entry.getValue().get();
+                if (state != EVICTED && !algorithm.isIdle(state, now)) {
+                    byte[] client = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(client.length);
+                    out.write(client);
+                    out.writeLong(state);
+                }
+            }
+        } else {
+            out.writeByte(SLOT_STATES);
+            for (int slot = 0; slot < table.getCapacity(); slot++) {
+                long key = table.getKey(slot);
+                long state = table.getState(slot);
+                if (SlotTable.isClient(key) && !algorithm.isIdle(state, now)) {
+                    out.writeInt(Long.BYTES);
+                    out.writeLong(key);
+                    out.writeLong(state);
+                }
+            }
+        }
+
+        out.writeInt(-1);
+    }
+
+    /**
+     * It restores the states of the clients written by {@link #writeSnapshot(DataOutput)}, moving them to the epoch
+     * of this limiter. States that became idle are skipped, as well as all the states if the snapshot was taken
+     * with another configuration of the API, and the states of clients that this limiter cannot track.
+     * @param in the input
+     * @param elapsed the time elapsed since the snapshot was taken, in milliseconds
+     * @return the number of restored clients
+     * @throws IOException if the input fails
+     */
+    public int readSnapshot(DataInput in, long elapsed) throws IOException {
+        boolean compatible = in.readLong() == SlotTable.fingerprint(apiConfig);
+        long from = in.readLong();
+        byte kind = in.readByte();
+        long now = now();
+        long to = now - elapsed;
+        int restored = 0;
+
+        for (int length = in.readInt(); length >= 0; length = in.readInt()) {
+            String client = null;
+            long key;
+            if (kind == CLIENT_STATES) {
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                client = new String(bytes, StandardCharsets.UTF_8);
+                key = table == null ? 0 : SlotTable.keyOf(client);
+            } else {
+                key = in.readLong();
+            }
+
+            long state = in.readLong();
+            if (!compatible || (table == null && client == null)) {
+                continue;
+            }
+
+            state = algorithm.rebase(state, from, to);
+            if (!algorithm.isIdle(state, now) && (stripes != null ? restoreStripe(client, state, now)
+                    : table == null ? restore(client, state, now) : restore(key, state, now))) {
+                restored++;
+            }
+        }
+
+        return restored;
+    }
+
+    /**
+     * It skips the states written by {@link #writeSnapshot(DataOutput)}.
+     * @param in the input
+     * @throws IOException if the input fails
+     */
+    public static void skipSnapshot(DataInput in) throws IOException {
+        in.readLong();
+        in.readLong();
+        in.readByte();
+        for (int length = in.readInt(); length >= 0; length = in.readInt()) {
+            for (int skip = length + Long.BYTES; skip > 0; skip--) {
+                in.readByte();
+            }
+        }
+    }
+
+    /**
+     * It carries over the states of the clients of the previous limiter of the same API and client that are not idle,
+     * moving them to the epoch of this limiter. States are carried over only if both limiters use the same algorithm
+     * and timeframe with the same layout of the states, both limit each client or neither does, and they do not share their states already,
+     * that is, they do not map the same table. Calls consumed by the previous limiter while carrying over its states may be missed.
+     * @param previous the previous limiter
+     * @return the number of clients carried over
+     */
+    public int carryOver(Limiter previous) {
+        if (previous.apiConfig.getAlgorithm() != apiConfig.getAlgorithm() || previous.apiConfig.getTimeFrame() != apiConfig.getTimeFrame()
+                || previous.apiConfig.isPerClient() != apiConfig.isPerClient() || !algorithm.hasLayoutOf(previous.algorithm)
+                || sharesStatesWith(previous)) {
+            return 0;
+        }
+
+        if (stripes != null || previous.stripes != null) {
+            return carryOverStripes(previous);
+        }
+
+        long from = previous.now();
+        long now = now();
+        int carried = 0;
+
+        if (previous.table == null) {
+            for (Map.Entry<String, AtomicLong> entry : previous.clients.entrySet()) {
+                long state = entry.getValue().get();
+                if (state != EVICTED && !previous.algorithm.isIdle(state, from)) {
+                    state = algorithm.rebase(state, from, now);
+                    if (table == null ? restore(entry.getKey(), state, now) : restore(SlotTable.keyOf(entry.getKey()), state, now)) {
+                        carried++;
+                    }
+                }
+            }
+        } else if (table != null) {
+            for (int slot = 0; slot < previous.table.getCapacity(); slot++) {
+                long key = previous.table.getKey(slot);
+                long state = previous.table.getState(slot);
+                if (SlotTable.isClient(key) && !previous.algorithm.isIdle(state, from) && restore(key, algorithm.rebase(state, from, now), now)) {
+                    carried++;
+                }
+            }
+        }
+
+        return carried;
+    }
+
+    /**
+     * It checks whether this limiter and another limiter of the same API and client map the same table,
+     * which is the case if they have the same fingerprint, since the file of a table is named after it.
+     * @param other the other limiter
+     * @return true if they share the states of their clients
+     */
+    private boolean sharesStatesWith(Limiter other) {
+        return isShared() && other.isShared() && SlotTable.fingerprint(apiConfig) == SlotTable.fingerprint(other.apiConfig);
+    }
+
+    /**
+     * It carries over the states of the stripes of the previous limiter, if it has as many stripes as this limiter.
+     * @param previous the previous limiter
+     * @return the number of stripes carried over
+     */
+    private int carryOverStripes(Limiter previous) {
+        if (stripes == null || previous.stripes == null || stripes.length != previous.stripes.length) {
+            return 0;
+        }
+
+        int carried = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            carried += stripes[i].carryOver(previous.stripes[i]);
+        }
+
+        return carried;
+    }
+
+    private boolean restoreStripe(String stripe, long state, long now) {
+        int index;
+        try {
+            index = Integer.parseInt(stripe);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+
+        return index >= 0 && index < stripes.length && stripes[index].restore(apiConfig.getClient(), state, now);
+    }
+
+    private boolean restore(String client, long state, long now) {
+        AtomicLong current = stateOf(client, now);
+        return current != null && current.compareAndSet(0, state);
+    }
+
+    private boolean restore(long key, long state, long now) {
+        int slot = table.slotOf(key, algorithm, now);
+        if (slot < 0) {
+            return false;
+        }
+
+        long current = table.getState(slot);
+        if (!algorithm.isIdle(current, now) || !table.compareAndSetState(slot, current, state)) {
+            return false;
+        } else if (table.owns(slot, key)) {
+            return true;
+        }
+
+        table.compareAndSetState(slot, state, current);
+        return false;
+    }
+
+    /**
+     * It returns the number of consume requests allowed by this limiter.
+     * @return the number of requests
+     */
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    /**
+     * It returns the number of consume requests rejected by this limiter.
+     * @return the number of requests
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * It returns the memory used by the slot table of this limiter, outside of the heap.
+     * @return the number of bytes, 0 if the states of the clients are kept in the heap
+     */
+    public long getOffHeapBytes() {
+        return table == null ? 0 : table.getFootprint();
+    }
+
+    /**
+     * It returns the number of clients currently tracked by this limiter.
+     * @return the number of clients
+     */
+    public int getNumberOfClients() {
+        if (stripes != null) {
+            // the stripes track the same client
+            int clients = 0;
+            for (Limiter stripe : stripes) {
+                clients = Math.max(clients, stripe.getNumberOfClients());
+            }
+
+            return clients;
+        }
+
+        return table == null ? numberOfClients.get() : table.size(algorithm, now());
+    }
+
+    /**
+     * It returns the state of a client, tracking the client if it is new.
+     * @param client the client
+     * @param now the current time relative to the epoch of this limiter
+     * @return the state, or null if the client is new and the limiter reached its max clients
+     */
+    private AtomicLong stateOf(String client, long now) {
+        AtomicLong state = this.clients.get(client);
+        if (state != null) {
+            return state;
+        }
+
+        if (!reserveClient(now)) {
+            return null;
+        }
+
+        AtomicLong created = new AtomicLong();
+        state = this.clients.putIfAbsent(client, created);
+        if (state != null) {
+            numberOfClients.decrementAndGet();
+            return state;
+        }
+
+        sweep(SWEEP_BATCH, now);
+        return created;
+    }
+
+    /**
+     * It reserves room for a new client, reclaiming expired clients if the limiter is full.
+     * @param now the current time relative to the epoch of this limiter
+     * @return true if reserved, false if the limiter reached its max clients
+     */
+    private boolean reserveClient(long now) {
+        if (numberOfClients.incrementAndGet() <= apiConfig.getMaxClients()) {
+            return true;
+        }
+
+        numberOfClients.decrementAndGet();
+        sweep(FULL_SWEEP_BATCH, now);
+
+        if (numberOfClients.incrementAndGet() <= apiConfig.getMaxClients()) {
+            return true;
+        }
+
+        numberOfClients.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * It inspects the next clients of the limiter and removes the ones whose timeframe expired.
+     * Only one thread sweeps at a time, the others skip the sweep instead of waiting for it.
+     * @param batch the max number of clients to inspect
+     * @param now the current time relative to the epoch of this limiter
+     */
+    private void sweep(int batch, long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            for (int i = 0; i < batch; i++) {
+                if (sweepCursor == null || !sweepCursor.hasNext()) {
+                    sweepCursor = this.clients.entrySet().iterator();
+                    if (!sweepCursor.hasNext()) {
+                        return;
+                    }
+                }
+
+                Map.Entry<String, AtomicLong> entry = sweepCursor.next();
+                AtomicLong state = entry.getValue();
+                long current = state.get();
+
+                // the client is marked as evicted first, so that a concurrent consumer holding
+                // its state retries on a fresh state instead of updating a removed one
+                if (current != EVICTED && current != 0 && algorithm.isIdle(current, now) && state.compareAndSet(current, EVICTED)) {
+                    remove(entry.getKey(), state);
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * It removes an evicted client, unless it was already removed by another thread.
+     * @param client the client
+     * @param state the evicted state of the client
+     */
+    private void remove(String client, AtomicLong state) {
+        if (this.clients.remove(client, state)) {
+            numberOfClients.decrementAndGet();
+            if (remote != null) {
+                remote.remove(client);
+            }
+        }
+    }
+
+    /**
+     * It returns the time to wait before retrying to track a new client, when the limiter reached its max clients:
+     * some client will be reclaimed eventually.
+     * @return the time in milliseconds
+     */
+    private long maxClientsWaitTime() {
+        return Math.max(1, apiConfig.getTimeFrame() / MAX_CLIENTS_POLLS);
+    }
+
+    /**
+     * It returns the current time relative to the epoch of this limiter, never negative.
+     * @return the current time in milliseconds
+     */
+    private long now() {
+        return Math.max(0, clock.millis() - epoch);
+    }
+
+    /**
+     * A client of a limiter, bound to its state so that consuming costs only the update of the state.
+     * The state is looked up again if it was evicted.
+     */
+    @ThreadSafe
+    public final class Binding {
+        private final String client;
+        private final long key;
+        private volatile AtomicLong state;
+
+        private Binding(String client) {
+            this.client = client;
+            this.key = table == null ? 0 : SlotTable.keyOf(client);
+        }
+
+        public Limiter getLimiter() {
+            return Limiter.this;
+        }
+
+        /**
+         * It consumes some API calls at once on behalf of the client: either all of them or none.
+         * @param permits the number of calls, positive
+         * @return true if consumed successfully, false if the current API calls exceed
+         * the configured API maximum calls within the configured API timeframe
+         * or if the client cannot be tracked because the limiter reached its max clients
+         */
+        public boolean consume(int permits) {
+            long now = now();
+            int stripe;
+            if (stripes != null) {
+                stripe = acquireStripe(permits);
+            } else {
+                stripe = (table == null ? acquire(now, permits) : acquireSlot(key, now, permits) >= 0) ? 0 : -1;
+            }
+
+            boolean consumed = stripe >= 0
+                    && acquireRemote(client, stripe, permits, now) == 0
+                    && acquireParents(client, stripe, permits, true) == 0;
+
+            (consumed ? allowed : rejected).increment();
+            return consumed;
+        }
+
+        /**
+         * It consumes some API calls at once on behalf of the client, or returns the time to wait before
+         * they could be consumed. Calls that are not consumed are not counted as rejected, see {@link #reject()}.
+         * @param permits the number of calls, positive
+         * @return 0 if consumed successfully, the time to wait in milliseconds otherwise,
+         * or {@link #NEVER} if the calls exceed the configured API maximum calls
+         */
+        public long consumeOrWait(int permits) {
+            long now = now();
+            int stripe = 0;
+            long waitTime;
+            if (stripes != null) {
+                long outcome = acquireStripeOrWait(permits);
+                stripe = outcome >= 0 ? (int) outcome : 0;
+                waitTime = outcome >= 0 ? 0 : waitTimeOf(outcome);
+            } else {
+                waitTime = table == null ? acquireOrWait(now, permits) : acquireSlotOrWait(key, now, permits);
+            }
+
+            if (waitTime == 0) {
+                waitTime = acquireRemote(client, stripe, permits, now);
+            }
+
+            if (waitTime == 0) {
+                waitTime = acquireParents(client, stripe, permits, false);
+            }
+
+            if (waitTime == 0) {
+                allowed.increment();
+            }
+
+            return waitTime;
+        }
+
+        /**
+         * It counts a rejected consume request, once the client gave up waiting.
+         */
+        public void reject() {
+            rejected.increment();
+        }
+
+        private boolean acquire(long now, int permits) {
+            while (true) {
+                AtomicLong state = state(now);
+                if (state == null) {
+                    return false;
+                }
+
+                long acquired = Limiter.this.acquire(client, state, now, permits);
+                if (acquired != EVICTED) {
+                    return acquired >= 0;
+                }
+
+                this.state = null;
+            }
+        }
+
+        private long acquireOrWait(long now, int permits) {
+            while (true) {
+                AtomicLong state = state(now);
+                if (state == null) {
+                    return maxClientsWaitTime();
+                }
+
+                long waitTime = Limiter.this.acquireOrWait(client, state, now, permits);
+                if (waitTime != EVICTED) {
+                    return waitTime;
+                }
+
+                this.state = null;
+            }
+        }
+
+        /**
+         * It returns the state of the client, looking it up if it was not looked up yet or it was evicted.
+         * @param now the current time relative to the epoch of the limiter
+         * @return the state, or null if the client is new and the limiter reached its max clients
+         */
+        private AtomicLong state(long now) {
+            AtomicLong state = this.state;
+            if (state == null) {
+                this.state = state = stateOf(client, now);
+            }
+
+            return state;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.dinuberinde.api.limiter.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Helper to read and update memory outside of the heap, such as the memory of a direct or mapped buffer.
+ * It is the only user of sun.misc.Unsafe, since Java 8 has no other way to compare-and-set memory outside of the heap.
+ * Unsafe is looked up by name and called through constant method handles, which the compiler inlines,
+ * so that the library does not refer to the proprietary API and compiles without warnings.
+ * Addresses must be aligned to 8 bytes.
+ */
+final class OffHeap {
+    private final static long ADDRESS_OFFSET;
+    private final static MethodHandle GET_LONG_OF_OBJECT;
+    private final static MethodHandle GET_LONG;
+    private final static MethodHandle PUT_LONG;
+    private final static MethodHandle GET_LONG_VOLATILE;
+    private final static MethodHandle PUT_LONG_VOLATILE;
+    private final static MethodHandle COMPARE_AND_SWAP_LONG;
+
+    static {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            ADDRESS_OFFSET = (long) unsafeClass.getMethod("objectFieldOffset", Field.class).invoke(unsafe, Buffer.class.getDeclaredField("address"));
+            GET_LONG_OF_OBJECT = lookup.findVirtual(unsafeClass, "getLong", methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+            GET_LONG = lookup.findVirtual(unsafeClass, "getLong", methodType(long.class, long.class)).bindTo(unsafe);
+            PUT_LONG = lookup.findVirtual(unsafeClass, "putLong", methodType(void.class, long.class, long.class)).bindTo(unsafe);
+            GET_LONG_VOLATILE = lookup.findVirtual(unsafeClass, "getLongVolatile", methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+            PUT_LONG_VOLATILE = lookup.findVirtual(unsafeClass, "putLongVolatile", methodType(void.class, Object.class, long.class, long.class)).bindTo(unsafe);
+            COMPARE_AND_SWAP_LONG = lookup.findVirtual(unsafeClass, "compareAndSwapLong",
+                    methodType(boolean.class, Object.class, long.class, long.class, long.class)).bindTo(unsafe);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private OffHeap() {}
+
+    /**
+     * It returns the address of the memory of a direct or mapped buffer.
+     * @param buffer the buffer
+     * @return the address
+     */
+    static long addressOf(ByteBuffer buffer) {
+        try {
+            return (long) GET_LONG_OF_OBJECT.invokeExact((Object) buffer, ADDRESS_OFFSET);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static long getLong(long address) {
+        try {
+            return (long) GET_LONG.invokeExact(address);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static void putLong(long address, long value) {
+        try {
+            PUT_LONG.invokeExact(address, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static long getLongVolatile(long address) {
+        try {
+            return (long) GET_LONG_VOLATILE.invokeExact((Object) null, address);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static void putLongVolatile(long address, long value) {
+        try {
+            PUT_LONG_VOLATILE.invokeExact((Object) null, address, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static boolean compareAndSetLong(long address, long expect, long update) {
+        try {
+            return (boolean) COMPARE_AND_SWAP_LONG.invokeExact((Object) null, address, expect, update);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * It rethrows the unchecked throwables of a method of Unsafe, which declares no checked exception.
+     */
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+
+        throw new IllegalStateException(e);
+    }
+}
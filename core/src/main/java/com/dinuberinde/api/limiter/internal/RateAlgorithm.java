@@ -0,0 +1,112 @@
+package com.dinuberinde.api.limiter.internal;
+
+import com.dinuberinde.api.limiter.ApiConfig;
+import net.jcip.annotations.Immutable;
+
+/**
+ * An algorithm to limit the API calls of a client. The state of a client is a single long,
+ * which is 0 for a client without calls and positive otherwise, and the algorithm is
+ * a pure function from the current state to the next one, so that states can be updated with compare-and-set.
+ */
+@Immutable
+abstract class RateAlgorithm {
+
+    /**
+     * The result of {@link #acquire(long, long, int)} if the calls are rejected.
+     */
+    final static long REJECTED = -1;
+
+    /**
+     * The result of {@link #waitTime(long, long, int)} if the calls can never be acquired.
+     */
+    final static long NEVER = -1;
+
+    /**
+     * It builds the algorithm configured for an API.
+     * @param apiConfig the api configuration
+     * @return the algorithm
+     */
+    static RateAlgorithm of(ApiConfig apiConfig) {
+        switch (apiConfig.getAlgorithm()) {
+            case SLIDING_WINDOW:
+                return new SlidingWindow(apiConfig);
+            case GCRA:
+                return new Gcra(apiConfig);
+            case FIXED_WINDOW:
+            default:
+                return new FixedWindow(apiConfig);
+        }
+    }
+
+    /**
+     * It acquires some calls at once: either all of them or none.
+     * @param state the current state of the client
+     * @param now the current time in milliseconds, relative to the epoch of the limiter
+     * @param permits the number of calls, positive
+     * @return the next state of the client, or {@link #REJECTED} if the calls exceed the limit
+     */
+    abstract long acquire(long state, long now, int permits);
+
+    /**
+     * It checks whether the states of another algorithm of the same kind are packed like the states of this algorithm,
+     * so that they can be carried over. By default the layout of the states does not depend on the configuration.
+     * @param other the other algorithm
+     * @return true if the states have the same layout
+     */
+    boolean hasLayoutOf(RateAlgorithm other) {
+        return other.getClass() == getClass();
+    }
+
+    /**
+     * It checks whether a client is idle, that is its state is equivalent to the state of a client without calls.
+     * @param state the state of the client
+     * @param now the current time in milliseconds, relative to the epoch of the limiter
+     * @return true if the client is idle, false otherwise
+     */
+    abstract boolean isIdle(long state, long now);
+
+    /**
+     * It returns the time to wait before some calls could be acquired at once, if no other calls are acquired meanwhile.
+     * @param state the current state of the client
+     * @param now the current time in milliseconds, relative to the epoch of the limiter
+     * @param permits the number of calls, positive
+     * @return the time in milliseconds, 0 if the calls can be acquired now,
+     * or {@link #NEVER} if the calls exceed the limit even for a client without calls
+     */
+    abstract long waitTime(long state, long now, int permits);
+
+    /**
+     * It returns the number of calls that can be acquired now, one at a time.
+     * @param state the current state of the client
+     * @param now the current time in milliseconds, relative to the epoch of the limiter
+     * @return the number of calls
+     */
+    abstract long remaining(long state, long now);
+
+    /**
+     * It returns the time after which a client will be idle again, if no other calls are acquired meanwhile.
+     * @param state the current state of the client
+     * @param now the current time in milliseconds, relative to the epoch of the limiter
+     * @return the time in milliseconds, 0 if the client is idle
+     */
+    abstract long resetTime(long state, long now);
+
+    /**
+     * It releases some calls acquired from a state, as if they had not been acquired. Calls acquired in a timeframe
+     * that is already over are not released.
+     * @param state the current state of the client
+     * @param now the current time in milliseconds, relative to the epoch of the limiter
+     * @param permits the number of calls, positive
+     * @return the next state of the client
+     */
+    abstract long release(long state, long now, int permits);
+
+    /**
+     * It moves the time of a state, to restore it in a limiter with another epoch.
+     * @param state the state of the client, not 0
+     * @param from the time when the state was read, relative to the epoch of its limiter
+     * @param to the same time relative to the epoch of the limiter of the moved state
+     * @return the moved state, equivalent to the state of a client without calls if its time would become negative
+     */
+    abstract long rebase(long state, long from, long to);
+}
@@ -0,0 +1,279 @@
+package com.dinuberinde.api.limiter.internal;
+
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import net.jcip.annotations.Immutable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * An immutable snapshot of the registered APIs, mapping each API to the limiters of its clients.
+ * Registering APIs builds a new snapshot, which can then be published atomically,
+ * hence readers never need a lock.
+ */
+@Immutable
+public final class Registry {
+    /**
+     * The registry without APIs.
+     */
+    public final static Registry EMPTY = new Registry(Collections.emptyMap(), Collections.emptySet(), RootApiTrie.EMPTY);
+
+    private final Map<String, ClientLimiters> apiLimiterMap;
+    private final Set<String> rootApis;
+    private final RootApiTrie rootApiTrie;
+
+    private Registry(Map<String, ClientLimiters> apiLimiterMap, Set<String> rootApis, RootApiTrie rootApiTrie) {
+        this.apiLimiterMap = apiLimiterMap;
+        this.rootApis = rootApis;
+        this.rootApiTrie = rootApiTrie;
+    }
+
+    /**
+     * It builds a new registry with the APIs of this registry and the given APIs.
+     * An API already registered for the same client is replaced.
+     * @param limiters the factory of the limiters of the given APIs
+     * @param apis the apis
+     * @return the new registry
+     * @throws ApiLimiterException if an API would be limited both for all clients and per client
+     */
+    public Registry register(Function<ApiConfig, Limiter> limiters, ApiConfig... apis) {
+        Map<String, ClientLimiters> apiLimiterMap = new HashMap<>(this.apiLimiterMap);
+
+        for (ApiConfig api : apis) {
+            put(apiLimiterMap, api, limiters.apply(api));
+        }
+
+        return of(apiLimiterMap);
+    }
+
+    /**
+     * It builds a new registry with the given APIs only. The limiter of an API already registered for the same client
+     * is kept if the configuration did not change, otherwise the states of its clients are carried over to the new limiter
+     * when possible, see {@link Limiter#carryOver(Limiter)}.
+     * @param limiters the factory of the limiters of the new or changed APIs
+     * @param apis the apis
+     * @return the new registry
+     * @throws ApiLimiterException if an API would be limited both for all clients and per client
+     */
+    public Registry reconfigure(Function<ApiConfig, Limiter> limiters, ApiConfig... apis) {
+        Map<String, ClientLimiters> apiLimiterMap = new HashMap<>();
+
+        for (ApiConfig api : apis) {
+            ClientLimiters clientLimiters = this.apiLimiterMap.get(api.getApiName());
+            Limiter previous = clientLimiters == null ? null : clientLimiters.get(api.getClient());
+            Limiter limiter = previous;
+
+            if (previous == null || !previous.getApiConfig().equals(api)) {
+                limiter = limiters.apply(api);
+                if (previous != null) {
+                    limiter.carryOver(previous);
+                }
+            }
+
+            put(apiLimiterMap, api, limiter);
+        }
+
+        return of(apiLimiterMap);
+    }
+
+    /**
+     * It builds a new registry without the given APIs, for all their clients.
+     * @param apiNames the names of the APIs, ending with * for root APIs
+     * @return the new registry
+     */
+    public Registry unregister(String... apiNames) {
+        Map<String, ClientLimiters> apiLimiterMap = new HashMap<>(this.apiLimiterMap);
+        for (String apiName : apiNames) {
+            apiLimiterMap.remove(apiName);
+        }
+
+        return of(apiLimiterMap);
+    }
+
+    /**
+     * It puts the limiter of an API for a client, keeping the counter of the unknown clients of the API
+     * and the counters of the allowed and rejected requests of the limiter it replaces, if any.
+     * @param apiLimiterMap the limiters of the clients of each API
+     * @param api the api
+     * @param limiter the limiter
+     * @throws ApiLimiterException if the API is limited for all clients and per client, since both are kept for all clients
+     */
+    private void put(Map<String, ClientLimiters> apiLimiterMap, ApiConfig api, Limiter limiter) {
+        ClientLimiters clientLimiters = apiLimiterMap.get(api.getApiName());
+        Limiter allClients = clientLimiters == null ? null : clientLimiters.get(ApiConfig.ALL_CLIENTS);
+        if (allClients != null && api.getClient().equals(ApiConfig.ALL_CLIENTS) && allClients.getApiConfig().isPerClient() != api.isPerClient()) {
+            throw new ApiLimiterException(String.format("API %s cannot be limited both for all clients and per client", api.getApiName()));
+        }
+
+        ClientLimiters previous = this.apiLimiterMap.get(api.getApiName());
+        Map<String, Limiter> clientLimiterMap = clientLimiters == null ? new HashMap<>() : new HashMap<>(clientLimiters.getLimiters());
+        clientLimiterMap.put(api.getClient(), limiter);
+
+        Limiter replaced = previous == null ? null : previous.get(api.getClient());
+        if (replaced != null && replaced != limiter) {
+            limiter.keepCounters(replaced);
+        }
+
+        LongAdder unknownClients = clientLimiters != null ? clientLimiters.getUnknownClientsCounter()
+                : previous != null ? previous.getUnknownClientsCounter() : new LongAdder();
+        apiLimiterMap.put(api.getApiName(), new ClientLimiters(clientLimiterMap, unknownClients));
+    }
+
+    /**
+     * It builds a registry of the given limiters, rebuilding the trie of the root APIs only if they changed,
+     * and links each limiter to the limiters of its parent APIs. The limiters whose parents changed are replaced
+     * by limiters sharing their states, so that the limiters of this registry keep their parents.
+     * @param apiLimiterMap the limiters of the clients of each API
+     * @return the registry
+     * @throws ApiLimiterException if a parent API is not registered for all clients, or the parents form a cycle
+     */
+    private Registry of(Map<String, ClientLimiters> apiLimiterMap) {
+        // the parents are resolved before linking any of them, since the links replace the limiters of the map
+        Map<Limiter, Limiter[]> parents = new IdentityHashMap<>();
+        for (ClientLimiters clientLimiters : apiLimiterMap.values()) {
+            for (Limiter limiter : clientLimiters.getLimiters().values()) {
+                parents.put(limiter, parentsOf(apiLimiterMap, limiter));
+            }
+        }
+
+        for (Map.Entry<String, ClientLimiters> api : apiLimiterMap.entrySet()) {
+            Map<String, Limiter> clientLimiterMap = new HashMap<>(api.getValue().getLimiters());
+            boolean linked = false;
+            for (Map.Entry<String, Limiter> client : clientLimiterMap.entrySet()) {
+                Limiter limiter = client.getValue().withParents(parents.get(client.getValue()));
+                linked |= limiter != client.getValue();
+                client.setValue(limiter);
+            }
+
+            if (linked) {
+                api.setValue(new ClientLimiters(clientLimiterMap, api.getValue().getUnknownClientsCounter()));
+            }
+        }
+
+        Set<String> rootApis = new LinkedHashSet<>();
+        for (String apiName : apiLimiterMap.keySet()) {
+            if (apiName.endsWith("*")) {
+                rootApis.add(apiName.substring(0, apiName.length() - 1));
+            }
+        }
+
+        RootApiTrie rootApiTrie = rootApis.equals(this.rootApis) ? this.rootApiTrie : RootApiTrie.of(rootApis);
+        return new Registry(Collections.unmodifiableMap(apiLimiterMap), Collections.unmodifiableSet(rootApis), rootApiTrie);
+    }
+
+    /**
+     * It resolves the chain of the parents of a limiter, from its parent up to the last ancestor.
+     * @param apiLimiterMap the limiters of the clients of each API
+     * @param limiter the limiter
+     * @return the parents, in the order they are charged
+     * @throws ApiLimiterException if a parent API is not registered for all clients, or the parents form a cycle
+     */
+    private static Limiter[] parentsOf(Map<String, ClientLimiters> apiLimiterMap, Limiter limiter) {
+        List<Limiter> parents = new ArrayList<>();
+        ApiConfig api = limiter.getApiConfig();
+
+        while (api.getParent() != null) {
+            ClientLimiters clientLimiters = apiLimiterMap.get(api.getParent());
+            Limiter parent = clientLimiters == null ? null : clientLimiters.get(ApiConfig.ALL_CLIENTS);
+            if (parent == null) {
+                throw new ApiLimiterException(String.format("Parent API %s of API %s not registered for all clients", api.getParent(), api.getApiName()));
+            } else if (parent == limiter || parents.contains(parent)) {
+                throw new ApiLimiterException(String.format("Parent API %s of API %s forms a cycle", api.getParent(), api.getApiName()));
+            }
+
+            parents.add(parent);
+            api = parent.getApiConfig();
+        }
+
+        return parents.toArray(new Limiter[0]);
+    }
+
+    /**
+     * It writes the states of the clients of the limiters of the registered APIs that are not idle,
+     * except the limiters whose states are shared with other processes.
+     * @param out the output
+     * @throws IOException if the output fails
+     */
+    public void writeSnapshot(DataOutput out) throws IOException {
+        for (Map.Entry<String, ClientLimiters> api : apiLimiterMap.entrySet()) {
+            for (Map.Entry<String, Limiter> client : api.getValue().getLimiters().entrySet()) {
+                if (!client.getValue().isShared()) {
+                    out.writeBoolean(true);
+                    out.writeUTF(api.getKey());
+                    out.writeUTF(client.getKey());
+                    client.getValue().writeSnapshot(out);
+                }
+            }
+        }
+
+        out.writeBoolean(false);
+    }
+
+    /**
+     * It restores the states written by {@link #writeSnapshot(DataOutput)} in the limiters of the registered APIs.
+     * The states of APIs not registered anymore are skipped.
+     * @param in the input
+     * @param elapsed the time elapsed since the snapshot was taken, in milliseconds
+     * @return the number of restored clients
+     * @throws IOException if the input fails
+     */
+    public int readSnapshot(DataInput in, long elapsed) throws IOException {
+        int restored = 0;
+
+        while (in.readBoolean()) {
+            String apiName = in.readUTF();
+            String client = in.readUTF();
+            ClientLimiters clientLimiters = apiLimiterMap.get(apiName);
+            Limiter limiter = clientLimiters == null ? null : clientLimiters.get(client);
+
+            if (limiter == null || limiter.isShared()) {
+                Limiter.skipSnapshot(in);
+            } else {
+                restored += limiter.readSnapshot(in, elapsed);
+            }
+        }
+
+        return restored;
+    }
+
+    /**
+     * It returns the name of the registered APIs.
+     * @return the names of the APIs
+     */
+    public Set<String> getApiNames() {
+        return apiLimiterMap.keySet();
+    }
+
+    /**
+     * It returns the limiters of the clients of an API.
+     * @param apiName the api name
+     * @return the limiters of the clients, or null if the API is not registered
+     */
+    public ClientLimiters getClientLimiters(String apiName) {
+        return apiLimiterMap.get(apiName);
+    }
+
+    /**
+     * It resolves the registered API name of an API, that is the name of the most specific root API
+     * if the API is a child of a root API.
+     * @param apiName the api name
+     * @return the longest matching root API name ending with * if the API is a child of a root API,
+     * the given API name otherwise
+     */
+    public String resolveApiName(String apiName) {
+        String rootApiName = rootApiTrie.longestMatch(apiName);
+        return rootApiName != null ? rootApiName : apiName;
+    }
+}
@@ -0,0 +1,241 @@
+package com.dinuberinde.api.limiter.internal;
+
+import com.dinuberinde.api.limiter.Algorithm;
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.IncrementRequest;
+import com.dinuberinde.api.limiter.IncrementResult;
+import com.dinuberinde.api.limiter.StateStore;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The limit of an API enforced by a {@link StateStore} shared with other limiters.
+ * The store is awaited up to a timeout: afterwards the calls are decided with the quota of the client
+ * left by the last result of the store, which is trusted for a short time only.
+ * Without a recent quota, the decision of the local limiter stands.
+ * Once the store missed the timeout, it is not awaited for a while: the calls are decided with the quota
+ * unless the store already answered, so that a slow store does not hold every consumer, nor the threads
+ * retrying asynchronous acquisitions, for the whole timeout.
+ * Expired quotas are removed incrementally: each result of the store inspects a few quotas,
+ * whatever the states of the local limiter, so that the quotas of the clients gone do not pile up.
+ */
+@ThreadSafe
+final class RemoteLimit {
+    /**
+     * The max time a quota left by the store is trusted, in milliseconds.
+     */
+    private final static long QUOTA_TTL = 1000;
+
+    /**
+     * The time the store is not awaited after it missed the timeout, in milliseconds.
+     */
+    private final static long SLOW_PERIOD = QUOTA_TTL;
+
+    /**
+     * The number of quotas inspected by a sweep for each result of the store, more than the quotas a result can create.
+     */
+    private final static int SWEEP_BATCH = 2;
+
+    private final ConcurrentMap<String, Quota> quotas = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    @GuardedBy("sweeping")
+    private Iterator<Map.Entry<String, Quota>> sweepCursor;
+    private final ApiConfig apiConfig;
+    private final StateStore store;
+    private final long timeout;
+
+    /**
+     * The time until which the store is not awaited, relative to the epoch of the limiter.
+     */
+    private volatile long slowUntil = Long.MIN_VALUE;
+
+    RemoteLimit(ApiConfig apiConfig, StateStore store, long timeout) {
+        if (apiConfig.getAlgorithm() != Algorithm.FIXED_WINDOW) {
+            throw new ApiLimiterException(String.format("Algorithm %s of API %s is not supported by state stores", apiConfig.getAlgorithm(), apiConfig.getApiName()));
+        }
+
+        this.apiConfig = apiConfig;
+        this.store = store;
+        this.timeout = timeout;
+    }
+
+    /**
+     * It consumes some calls of a client in the store.
+     * @param client the client
+     * @param permits the number of calls
+     * @param now the current time relative to the epoch of the limiter
+     * @return 0 if consumed successfully, otherwise the time in milliseconds before the calls could be consumed,
+     * or {@link Limiter#NEVER} if they exceed the max calls
+     */
+    long consume(String client, int permits, long now) {
+        CompletableFuture<IncrementResult> future = store.increment(request(client, permits));
+        future.thenAccept(result -> update(client, result, now));
+
+        IncrementResult result = await(future, now);
+        if (result != null) {
+            if (result.isConsumed()) {
+                return 0;
+            }
+
+            return result.getResetTime() == IncrementResult.NEVER ? Limiter.NEVER : Math.max(1, result.getResetTime());
+        }
+
+        return consumeQuota(client, permits, now);
+    }
+
+    /**
+     * It consumes several groups of calls of a client in the store, with a single batch.
+     * @param client the client
+     * @param permits the number of calls of each group
+     * @param consumed the groups consumed by the local limiter, updated with the decisions of the store
+     * @param now the current time relative to the epoch of the limiter
+     */
+    void consumeAll(String client, int[] permits, boolean[] consumed, long now) {
+        List<IncrementRequest> requests = new ArrayList<>(permits.length);
+        for (int i = 0; i < permits.length; i++) {
+            if (consumed[i]) {
+                requests.add(request(client, permits[i]));
+            }
+        }
+
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        CompletableFuture<List<IncrementResult>> future = store.incrementAll(requests);
+        future.thenAccept(results -> update(client, results.get(results.size() - 1), now));
+
+        List<IncrementResult> results = await(future, now);
+        for (int i = 0, j = 0; i < permits.length; i++) {
+            if (consumed[i]) {
+                consumed[i] = results != null ? results.get(j++).isConsumed() : consumeQuota(client, permits[i], now) == 0;
+            }
+        }
+    }
+
+    /**
+     * It forgets the quota of a client removed from the limiter.
+     * @param client the client
+     */
+    void remove(String client) {
+        quotas.remove(client);
+    }
+
+    private IncrementRequest request(String client, int permits) {
+        return new IncrementRequest(apiConfig.getApiName() + '#' + client, permits, apiConfig.getMaxCalls(), apiConfig.getTimeFrame());
+    }
+
+    /**
+     * It waits for the result of the store, up to the timeout, or not at all if the store recently missed the timeout.
+     * @param future the future result
+     * @param now the current time relative to the epoch of the limiter
+     * @return the result, or null if the store did not answer in time or failed
+     */
+    private <T> T await(CompletableFuture<T> future, long now) {
+        try {
+            return now < slowUntil ? future.getNow(null) : future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (TimeoutException e) {
+            slowUntil = now + SLOW_PERIOD;
+            return null;
+        } catch (ExecutionException | CompletionException | CancellationException e) {
+            return null;
+        }
+    }
+
+    private void update(String client, IncrementResult result, long now) {
+        if (result.getResetTime() == IncrementResult.NEVER) {
+            // the result does not describe the window of the client
+            return;
+        }
+
+        long remaining = Math.max(0, apiConfig.getMaxCalls() - result.getCalls());
+        quotas.put(client, new Quota(remaining, now + Math.min(QUOTA_TTL, result.getResetTime())));
+        sweep(now);
+    }
+
+    /**
+     * It inspects the next quotas and removes the expired ones.
+     * Only one thread sweeps at a time, the others skip the sweep instead of waiting for it.
+     * @param now the current time relative to the epoch of the limiter
+     */
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            for (int i = 0; i < SWEEP_BATCH; i++) {
+                if (sweepCursor == null || !sweepCursor.hasNext()) {
+                    sweepCursor = quotas.entrySet().iterator();
+                    if (!sweepCursor.hasNext()) {
+                        return;
+                    }
+                }
+
+                Map.Entry<String, Quota> entry = sweepCursor.next();
+                if (entry.getValue().expiration <= now) {
+                    quotas.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * It consumes some calls from the quota of a client.
+     * @param client the client
+     * @param permits the number of calls
+     * @param now the current time relative to the epoch of the limiter
+     * @return 0 if consumed successfully or the client has no recent quota,
+     * otherwise the time in milliseconds before the quota expires
+     */
+    private long consumeQuota(String client, int permits, long now) {
+        while (true) {
+            Quota quota = quotas.get(client);
+            if (quota == null) {
+                return 0;
+            } else if (quota.expiration <= now) {
+                quotas.remove(client, quota);
+                return 0;
+            } else if (quota.remaining < permits) {
+                return quota.expiration - now;
+            } else if (quotas.replace(client, quota, new Quota(quota.remaining - permits, quota.expiration))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * The calls a client can still make until an expiration time.
+     */
+    @Immutable
+    private static final class Quota {
+        private final long remaining;
+        private final long expiration;
+
+        private Quota(long remaining, long expiration) {
+            this.remaining = remaining;
+            this.expiration = expiration;
+        }
+    }
+}
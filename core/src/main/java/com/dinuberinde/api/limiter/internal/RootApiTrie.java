@@ -0,0 +1,162 @@
+package com.dinuberinde.api.limiter.internal;
+
+import net.jcip.annotations.Immutable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable radix tree of root API prefixes, to resolve the most specific root API of an API
+ * in a time proportional to the length of the API name, independently of the number of root APIs.
+ * Edges are labelled with the characters shared by the prefixes, which for path-like APIs are whole segments.
+ */
+@Immutable
+final class RootApiTrie {
+    private final static char[] NO_KEYS = new char[0];
+    private final static Node[] NO_CHILDREN = new Node[0];
+
+    /**
+     * The trie without root APIs.
+     */
+    final static RootApiTrie EMPTY = new RootApiTrie(new Node("", null, NO_KEYS, NO_CHILDREN));
+
+    private final Node root;
+
+    private RootApiTrie(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * It builds the trie of the given root APIs.
+     * @param rootApis the root API prefixes, without the trailing *
+     * @return the trie
+     */
+    static RootApiTrie of(Collection<String> rootApis) {
+        if (rootApis.isEmpty()) {
+            return EMPTY;
+        }
+
+        Builder root = new Builder("");
+        for (String rootApi : rootApis) {
+            root.insert(rootApi, 0);
+        }
+
+        return new RootApiTrie(root.build());
+    }
+
+    /**
+     * It returns the longest root API which is a prefix of the given API.
+     * @param apiName the api name
+     * @return the root API name ending with *, or null if no root API is a prefix of the API
+     */
+    String longestMatch(String apiName) {
+        Node node = root;
+        String match = null;
+        int position = 0;
+
+        while (true) {
+            if (node.rootApiName != null) {
+                match = node.rootApiName;
+            }
+
+            if (position == apiName.length()) {
+                return match;
+            }
+
+            int index = Arrays.binarySearch(node.keys, apiName.charAt(position));
+            if (index < 0) {
+                return match;
+            }
+
+            Node child = node.children[index];
+            if (!apiName.startsWith(child.label, position)) {
+                return match;
+            }
+
+            position += child.label.length();
+            node = child;
+        }
+    }
+
+    @Immutable
+    private static final class Node {
+        private final String label;
+        private final String rootApiName;
+        private final char[] keys;
+        private final Node[] children;
+
+        private Node(String label, String rootApiName, char[] keys, Node[] children) {
+            this.label = label;
+            this.rootApiName = rootApiName;
+            this.keys = keys;
+            this.children = children;
+        }
+    }
+
+    /**
+     * A mutable node used to build the trie.
+     */
+    private static final class Builder {
+        private String label;
+        private String rootApiName;
+        private TreeMap<Character, Builder> children = new TreeMap<>();
+
+        private Builder(String label) {
+            this.label = label;
+        }
+
+        /**
+         * It inserts the suffix of a root API starting at the given offset below this node.
+         */
+        private void insert(String rootApi, int offset) {
+            if (offset == rootApi.length()) {
+                rootApiName = rootApi + "*";
+                return;
+            }
+
+            char key = rootApi.charAt(offset);
+            Builder child = children.get(key);
+            if (child == null) {
+                child = new Builder(rootApi.substring(offset));
+                child.rootApiName = rootApi + "*";
+                children.put(key, child);
+                return;
+            }
+
+            int common = 0;
+            int max = Math.min(child.label.length(), rootApi.length() - offset);
+            while (common < max && child.label.charAt(common) == rootApi.charAt(offset + common)) {
+                common++;
+            }
+
+            if (common < child.label.length()) {
+                // split the child on the common part of the labels
+                Builder split = new Builder(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children.put(child.label.charAt(0), child);
+                children.put(key, split);
+                child = split;
+            }
+
+            child.insert(rootApi, offset + common);
+        }
+
+        private Node build() {
+            if (children.isEmpty()) {
+                return new Node(label, rootApiName, NO_KEYS, NO_CHILDREN);
+            }
+
+            char[] keys = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Builder> child : children.entrySet()) {
+                keys[i] = child.getKey();
+                nodes[i++] = child.getValue().build();
+            }
+
+            return new Node(label, rootApiName, keys, nodes);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.dinuberinde.api.limiter.internal;
+
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import net.jcip.annotations.Immutable;
+
+/**
+ * The sliding window counter algorithm. Time is split in windows as long as the timeframe and a call is allowed
+ * if the calls of the current window, plus the calls of the previous window weighted by the part of it which
+ * overlaps a timeframe ending now, do not exceed the max calls.
+ * The state of a client packs the index of its current window, the calls of the previous window and
+ * the calls of the current window. The calls take as many bits as the max calls, and the index the others,
+ * modulo their number of windows: a timeframe so short for the max calls that the index would wrap around
+ * within {@link #MIN_WRAP_TIME} is rejected, otherwise the state of a client idle for so long could look recent.
+ */
+@Immutable
+final class SlidingWindow extends RateAlgorithm {
+    private final static int MAX_CALLS_BITS = 20;
+
+    /**
+     * The maximum number of calls that can be stored.
+     */
+    private final static int MAX_CALLS = (1 << MAX_CALLS_BITS) - 1;
+
+    /**
+     * The min time before the window index wraps around, in milliseconds (10 years).
+     */
+    private final static long MIN_WRAP_TIME = 3652L * 24 * 60 * 60 * 1000;
+
+    private final ApiConfig apiConfig;
+
+    /**
+     * The number of bits of the calls of a window.
+     */
+    private final int callsBits;
+    private final long callsMask;
+
+    /**
+     * The mask of the window index, whose bits are those left by the calls keeping the state positive.
+     */
+    private final long indexMask;
+
+    SlidingWindow(ApiConfig apiConfig) {
+        if (apiConfig.getMaxCalls() > MAX_CALLS) {
+            throw new ApiLimiterException(String.format("Max calls of API %s cannot exceed %d", apiConfig.getApiName(), MAX_CALLS));
+        }
+
+        this.apiConfig = apiConfig;
+        this.callsBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(apiConfig.getMaxCalls()));
+        this.callsMask = (1L << callsBits) - 1;
+        this.indexMask = (1L << (63 - 2 * callsBits)) - 1;
+
+        long minTimeFrame = (MIN_WRAP_TIME + indexMask) / (indexMask + 1);
+        if (apiConfig.getTimeFrame() < minTimeFrame) {
+            throw new ApiLimiterException(String.format("Timeframe of API %s must be at least %d ms with %d max calls and the sliding window",
+                    apiConfig.getApiName(), minTimeFrame, apiConfig.getMaxCalls()));
+        }
+    }
+
+    @Override
+    boolean hasLayoutOf(RateAlgorithm other) {
+        return other instanceof SlidingWindow && ((SlidingWindow) other).callsBits == callsBits;
+    }
+
+    @Override
+    long acquire(long state, long now, int permits) {
+        long timeframe = apiConfig.getTimeFrame();
+        long index = now / timeframe;
+        long previousCalls;
+        long currentCalls;
+
+        long elapsedWindows = (index - getIndex(state)) & indexMask;
+        if (state == 0 || elapsedWindows > 1) {
+            previousCalls = 0;
+            currentCalls = 0;
+        } else if (elapsedWindows == 1) {
+            previousCalls = getCurrentCalls(state);
+            currentCalls = 0;
+        } else {
+            previousCalls = getPreviousCalls(state);
+            currentCalls = getCurrentCalls(state);
+        }
+
+        // calls of the previous window still covered by the timeframe ending now
+        long weightedCalls = previousCalls * (timeframe - now % timeframe) / timeframe;
+        if (weightedCalls + currentCalls + permits > apiConfig.getMaxCalls()) {
+            return REJECTED;
+        }
+
+        return of(index, previousCalls, currentCalls + permits);
+    }
+
+    @Override
+    boolean isIdle(long state, long now) {
+        return state == 0 || ((now / apiConfig.getTimeFrame() - getIndex(state)) & indexMask) > 1;
+    }
+
+    @Override
+    long waitTime(long state, long now, int permits) {
+        if (permits > apiConfig.getMaxCalls()) {
+            return NEVER;
+        } else if (acquire(state, now, permits) != REJECTED) {
+            return 0;
+        }
+
+        long timeframe = apiConfig.getTimeFrame();
+        long index = now / timeframe;
+        long elapsedWindows = (index - getIndex(state)) & indexMask;
+        long previousCalls = elapsedWindows == 0 ? getPreviousCalls(state) : getCurrentCalls(state);
+        long currentCalls = elapsedWindows == 0 ? getCurrentCalls(state) : 0;
+        long start = index * timeframe;
+
+        if (currentCalls + permits > apiConfig.getMaxCalls()) {
+            // the calls of the current window must become the previous ones
+            previousCalls = currentCalls;
+            currentCalls = 0;
+            start += timeframe;
+        }
+
+        // the weighted calls of the previous window decrease until there is room for the permits
+        long room = apiConfig.getMaxCalls() - currentCalls - permits;
+        long offset = Math.max(0, timeframe - (room + 1) * timeframe / previousCalls + 1);
+        return Math.max(1, start + offset - now);
+    }
+
+    @Override
+    long remaining(long state, long now) {
+        if (isIdle(state, now)) {
+            return apiConfig.getMaxCalls();
+        }
+
+        long timeframe = apiConfig.getTimeFrame();
+        boolean sameWindow = ((now / timeframe - getIndex(state)) & indexMask) == 0;
+        long previousCalls = sameWindow ? getPreviousCalls(state) : getCurrentCalls(state);
+        long currentCalls = sameWindow ? getCurrentCalls(state) : 0;
+        long weightedCalls = previousCalls * (timeframe - now % timeframe) / timeframe;
+        return Math.max(0, apiConfig.getMaxCalls() - weightedCalls - currentCalls);
+    }
+
+    @Override
+    long resetTime(long state, long now) {
+        if (isIdle(state, now)) {
+            return 0;
+        }
+
+        // the client is idle from the start of the second window after the window of its state
+        long timeframe = apiConfig.getTimeFrame();
+        long index = now / timeframe - ((now / timeframe - getIndex(state)) & indexMask);
+        return (index + 2) * timeframe - now;
+    }
+
+    @Override
+    long release(long state, long now, int permits) {
+        if (isIdle(state, now)) {
+            return state;
+        }
+
+        // the calls are released from the window of the state, even if it became the previous window meanwhile
+        return of(getIndex(state), getPreviousCalls(state), Math.max(0, getCurrentCalls(state) - permits));
+    }
+
+    @Override
+    long rebase(long state, long from, long to) {
+        // windows are aligned to the epoch, hence the state moves to the window nearest to its moved start
+        long timeframe = apiConfig.getTimeFrame();
+        long index = from / timeframe - ((from / timeframe - getIndex(state)) & indexMask);
+        long start = index * timeframe + to - from;
+        return start < 0 ? 0 : of((start + timeframe / 2) / timeframe, getPreviousCalls(state), getCurrentCalls(state));
+    }
+
+    private long of(long index, long previousCalls, long currentCalls) {
+        return ((index & indexMask) << 2 * callsBits) | (previousCalls << callsBits) | currentCalls;
+    }
+
+    private long getIndex(long state) {
+        return state >>> 2 * callsBits;
+    }
+
+    private long getPreviousCalls(long state) {
+        return (state >>> callsBits) & callsMask;
+    }
+
+    private long getCurrentCalls(long state) {
+        return state & callsMask;
+    }
+}
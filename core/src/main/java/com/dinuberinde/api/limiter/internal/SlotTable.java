@@ -0,0 +1,406 @@
+package com.dinuberinde.api.limiter.internal;
+
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.Clock;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A fixed-size open-addressing table of the states of the clients of a limiter, outside of the heap.
+ * Each slot holds the 64 bits hash of a client and its state, that is 16 bytes per client, both updated
+ * with compare-and-set on the memory of the table, so that the table can also be shared by the processes mapping the same file.
+ * A client lives within {@link #MAX_PROBES} slots from the slot of its hash: a new client takes the first
+ * empty slot, or the slot of an idle client, which is equivalent to a slot without calls.
+ * A slot is handed over to a new client through a pending key, so that the calls charged meanwhile
+ * by its previous client are detected and undone, see {@link #owns(int, long)}.
+ * Clients whose hashes collide share their calls.
+ */
+@ThreadSafe
+public final class SlotTable {
+    /**
+     * The max number of slots inspected to find a client.
+     */
+    final static int MAX_PROBES = 64;
+
+    /**
+     * The key of an empty slot.
+     */
+    private final static long EMPTY = 0;
+
+    /**
+     * The key of a slot being handed over to a new client.
+     */
+    private final static long PENDING = Long.MIN_VALUE;
+
+    /**
+     * The max number of times a slot being handed over is inspected again, before considering it taken.
+     * A process that dies while handing over a slot leaves it pending forever.
+     */
+    private final static int MAX_PENDING_SPINS = 1 << 10;
+
+    private final static long MAGIC = 0x4150494C494D4954L; // APILIMIT
+    private final static int HEADER_BYTES = 64;
+    private final static int SLOT_BYTES = 16;
+    private final static int MAGIC_OFFSET = 0;
+    private final static int CAPACITY_OFFSET = 8;
+    private final static int FINGERPRINT_OFFSET = 16;
+    private final static int EPOCH_OFFSET = 24;
+
+    /**
+     * The max number of slots, so that a table fits a buffer.
+     */
+    private final static int MAX_SLOTS = 1 << 26;
+
+    /**
+     * The memory of the table, kept reachable so that it is not released.
+     */
+    private final ByteBuffer buffer;
+    private final long address;
+    private final int mask;
+    private final int maxProbes;
+    private final long epoch;
+    private final boolean shared;
+
+    private SlotTable(ByteBuffer buffer, int capacity, long epoch, boolean shared) {
+        this.buffer = buffer;
+        this.address = align(OffHeap.addressOf(buffer));
+        this.mask = capacity - 1;
+        this.maxProbes = Math.min(MAX_PROBES, capacity);
+        this.epoch = epoch;
+        this.shared = shared;
+    }
+
+    /**
+     * It allocates a table in direct memory, released when the table is garbage collected.
+     * @param slots the min number of slots, rounded up to a power of two
+     * @param clock the clock of the limiter, which sets the epoch of the table
+     * @return the table
+     */
+    public static SlotTable direct(int slots, Clock clock) {
+        int capacity = capacity(slots);
+
+        // direct buffers are zeroed, and the extra bytes allow to align the slots for compare-and-set
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_BYTES + capacity * SLOT_BYTES + Long.BYTES);
+        return new SlotTable(buffer, capacity, clock.millis() - Limiter.EPOCH_HEADROOM, false);
+    }
+
+    /**
+     * It maps the table of an API shared by the processes of a host, creating its file in a directory if missing.
+     * Each configuration of the API has its own file, named after the API, its client and the fingerprint of the configuration,
+     * so that only the processes registering the API with the same configuration share it. Their clocks must have the same origin,
+     * such as {@link Clock#system()}.
+     * @param directory the directory of the tables
+     * @param apiConfig the api configuration
+     * @param slots the min number of slots, rounded up to a power of two
+     * @param clock the clock of the limiter, which sets the epoch of a new table
+     * @return the table
+     * @throws ApiLimiterException if the file cannot be mapped, or it was created with another number of slots
+     * or for another configuration whose fingerprint collides
+     */
+    public static SlotTable mapped(Path directory, ApiConfig apiConfig, int slots, Clock clock) {
+        int capacity = capacity(slots);
+        long size = HEADER_BYTES + capacity * SLOT_BYTES;
+        Path file = directory.resolve(String.format("%016x-%016x.slots", keyOf(apiConfig.getApiName() + '#' + apiConfig.getClient()), fingerprint(apiConfig)));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                return map(channel, file, apiConfig, capacity, size, clock);
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            throw new ApiLimiterException(String.format("Cannot map shared memory file %s: %s", file, e.getMessage()));
+        }
+    }
+
+    /**
+     * It maps the table of an API from a file locked by this process, initializing the file if it is empty.
+     */
+    private static SlotTable map(FileChannel channel, Path file, ApiConfig apiConfig, int capacity, long size, Clock clock) throws IOException {
+        long fingerprint = fingerprint(apiConfig);
+        boolean created = channel.size() == 0;
+        if (!created && channel.size() != size) {
+            throw new ApiLimiterException(String.format("Shared memory file %s of API %s has a different number of slots", file, apiConfig.getApiName()));
+        }
+
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        long address = align(OffHeap.addressOf(buffer));
+        if (created) {
+            OffHeap.putLong(address + CAPACITY_OFFSET, capacity);
+            OffHeap.putLong(address + FINGERPRINT_OFFSET, fingerprint);
+            OffHeap.putLong(address + EPOCH_OFFSET, clock.millis() - Limiter.EPOCH_HEADROOM);
+            OffHeap.putLongVolatile(address + MAGIC_OFFSET, MAGIC);
+        } else if (OffHeap.getLongVolatile(address + MAGIC_OFFSET) != MAGIC || OffHeap.getLong(address + CAPACITY_OFFSET) != capacity) {
+            throw new ApiLimiterException(String.format("Shared memory file %s of API %s is not a table of %d slots", file, apiConfig.getApiName(), capacity));
+        } else if (OffHeap.getLong(address + FINGERPRINT_OFFSET) != fingerprint) {
+            throw new ApiLimiterException(String.format("Shared memory file %s was created for another configuration of API %s", file, apiConfig.getApiName()));
+        }
+
+        return new SlotTable(buffer, capacity, OffHeap.getLong(address + EPOCH_OFFSET), true);
+    }
+
+    /**
+     * It returns the time when the table was created, which is the epoch of the limiters using it.
+     * @return the time in milliseconds, according to the clock of the limiter that created the table
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * It checks whether the table is mapped from a file, hence it survives the process.
+     * @return true if the table is mapped from a file, false otherwise
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * It returns the memory used by the table, which does not depend on its clients.
+     * @return the number of bytes
+     */
+    public long getFootprint() {
+        return buffer.capacity();
+    }
+
+    /**
+     * It returns the number of slots of the table.
+     * @return the number of slots
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * It returns the 64 bits hash of a client, never {@link #EMPTY} nor {@link #PENDING}, stable across processes.
+     * @param client the client
+     * @return the key of the client
+     */
+    static long keyOf(String client) {
+        // FNV-1a followed by the finalizer of MurmurHash3
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < client.length(); i++) {
+            hash = (hash ^ client.charAt(i)) * 0x100000001b3L;
+        }
+
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1 : hash == PENDING ? PENDING + 1 : hash;
+    }
+
+    /**
+     * It checks whether a key read from a slot belongs to a client, that is, the slot is neither empty nor being handed over.
+     * @param key the key
+     * @return true if the key belongs to a client
+     */
+    static boolean isClient(long key) {
+        return key != EMPTY && key != PENDING;
+    }
+
+    /**
+     * It returns a hash of the parts of an API configuration which determine the meaning of the states of its clients.
+     * @param apiConfig the api configuration
+     * @return the hash
+     */
+    static long fingerprint(ApiConfig apiConfig) {
+        return keyOf(apiConfig.getAlgorithm() + "#" + apiConfig.getMaxCalls() + "#" + apiConfig.getTimeFrame() + "#" + apiConfig.getBurst()
+                + (apiConfig.isPerClient() ? "#per-client" : "") + (apiConfig.getStripes() > 1 ? "#stripes=" + apiConfig.getStripes() : ""));
+    }
+
+    /**
+     * It returns the slot of a client, taking a slot if the client is new.
+     * @param key the key of the client
+     * @param algorithm the algorithm of the states of the table, to find idle clients
+     * @param now the current time relative to the epoch of the table
+     * @return the slot, or -1 if the client is new and all its candidate slots are taken by clients that are not idle
+     */
+    int slotOf(long key, RateAlgorithm algorithm, long now) {
+        int home = home(key);
+
+        while (true) {
+            int idle = -1;
+            int idleProbe = -1;
+            long idleKey = EMPTY;
+            long idleState = 0;
+            int spins = 0;
+
+            for (int i = 0; i < maxProbes; i++) {
+                int slot = (home + i) & mask;
+                long current = getKey(slot);
+                if (current == key) {
+                    return slot;
+                } else if (current == EMPTY) {
+                    if (idle >= 0) {
+                        break;
+                    } else if (compareAndSetKey(slot, EMPTY, key)) {
+                        return slot;
+                    }
+
+                    // another client took the slot meanwhile: inspect it again
+                    i--;
+                } else if (current == PENDING) {
+                    // the slot might be handed over to this very client: wait for the hand-over, so that the client
+                    // does not take another slot too
+                    if (spins++ < MAX_PENDING_SPINS) {
+                        Thread.yield();
+                        i--;
+                    }
+                } else if (idle < 0) {
+                    long state = getState(slot);
+                    if (algorithm.isIdle(state, now)) {
+                        idle = slot;
+                        idleProbe = i;
+                        idleKey = current;
+                        idleState = state;
+                    }
+                }
+            }
+
+            if (idle < 0) {
+                return -1;
+            }
+
+            int slot = handOver(idle, idleProbe, idleKey, idleState, key, home);
+            if (slot >= 0) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * It hands an idle slot over to a new client. An idle state is equivalent to a state without calls,
+     * hence it is handed over as it is. The slot is pending meanwhile, and the hand-over is abandoned
+     * if its state changed since it was found idle, that is, if its previous client charged calls to it.
+     * @param slot the idle slot
+     * @param probe the distance of the idle slot from the slot of the hash of the client
+     * @param previousKey the key of the previous client of the slot
+     * @param idleState the idle state of the slot
+     * @param key the key of the new client
+     * @param home the slot of the hash of the new client
+     * @return the slot of the new client, or -1 if the hand-over was abandoned
+     */
+    private int handOver(int slot, int probe, long previousKey, long idleState, long key, int home) {
+        if (!compareAndSetKey(slot, previousKey, PENDING)) {
+            return -1;
+        }
+
+        if (getState(slot) != idleState) {
+            putKey(slot, previousKey);
+            return -1;
+        }
+
+        // the client may have taken a later slot while this one was not idle yet: it keeps that slot
+        for (int i = probe + 1; i < maxProbes; i++) {
+            int later = (home + i) & mask;
+            long current = getKey(later);
+            if (current == key) {
+                putKey(slot, previousKey);
+                return later;
+            } else if (current == EMPTY) {
+                break;
+            }
+        }
+
+        putKey(slot, key);
+        return slot;
+    }
+
+    /**
+     * It checks whether a slot is the slot of a client, that is, the first slot with its key in the order of the probes.
+     * A client checks it again after updating the state of its slot, and it undoes the update if the slot
+     * was handed over to another client meanwhile.
+     * @param slot the slot
+     * @param key the key of the client
+     * @return true if the slot is the slot of the client
+     */
+    boolean owns(int slot, long key) {
+        return find(key) == slot;
+    }
+
+    /**
+     * It returns the slot of a client, without taking a slot if the client is new.
+     * @param key the key of the client
+     * @return the slot, or -1 if the client is not in the table
+     */
+    int find(long key) {
+        int home = home(key);
+
+        for (int i = 0; i < maxProbes; i++) {
+            int slot = (home + i) & mask;
+            long current = getKey(slot);
+            if (current == key) {
+                return slot;
+            } else if (current == EMPTY) {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * It returns the number of clients of the table that are not idle.
+     * @param algorithm the algorithm of the states of the table
+     * @param now the current time relative to the epoch of the table
+     * @return the number of clients
+     */
+    int size(RateAlgorithm algorithm, long now) {
+        int size = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            if (isClient(getKey(slot)) && !algorithm.isIdle(getState(slot), now)) {
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    long getKey(int slot) {
+        return OffHeap.getLongVolatile(slotAddress(slot));
+    }
+
+    long getState(int slot) {
+        return OffHeap.getLongVolatile(slotAddress(slot) + 8);
+    }
+
+    boolean compareAndSetState(int slot, long expect, long update) {
+        return OffHeap.compareAndSetLong(slotAddress(slot) + 8, expect, update);
+    }
+
+    private boolean compareAndSetKey(int slot, long expect, long update) {
+        return OffHeap.compareAndSetLong(slotAddress(slot), expect, update);
+    }
+
+    private void putKey(int slot, long key) {
+        OffHeap.putLongVolatile(slotAddress(slot), key);
+    }
+
+    private long slotAddress(int slot) {
+        return address + HEADER_BYTES + (long) slot * SLOT_BYTES;
+    }
+
+    private static long align(long address) {
+        return (address + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    private int home(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    private static int capacity(int slots) {
+        if (slots <= 0 || slots > MAX_SLOTS) {
+            throw new ApiLimiterException(String.format("Slots must be positive and at most %d", MAX_SLOTS));
+        }
+
+        return slots == 1 ? 1 : Integer.highestOneBit(slots - 1) << 1;
+    }
+}
@@ -0,0 +1,68 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiHandle;
+import com.dinuberinde.api.limiter.ApiLimiter;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ApiHandleTest {
+    private final static String API_NAME = "/api/handle-test";
+    private final static String CLIENT = "handleclient";
+
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should allow 5 calls through a handle and share them with consume")
+    public void shouldShareCallsWithConsume() {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME, CLIENT));
+        ApiHandle handle = ApiLimiter.handle(API_NAME, CLIENT);
+
+        for (int i = 1; i <= 4; i++) {
+            Assertions.assertTrue(handle.consume());
+        }
+        Assertions.assertTrue(ApiLimiter.consume(API_NAME, CLIENT));
+        Assertions.assertFalse(handle.consume());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should resolve a handle of a root API")
+    public void shouldResolveRootApi() {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME + "/root/*", 3, 10 * 1000));
+        ApiHandle handle = ApiLimiter.handle(API_NAME + "/root/orders", CLIENT);
+
+        Assertions.assertTrue(handle.consume(3));
+        Assertions.assertFalse(ApiLimiter.consume(API_NAME + "/root/users"));
+    }
+
+    @Test
+    @DisplayName("Should use the new limiter after the API is registered again")
+    public void shouldFollowRegistration() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, 1, 10 * 1000, CLIENT));
+        ApiHandle handle = registry.handle(API_NAME, CLIENT);
+
+        Assertions.assertTrue(handle.consume());
+        Assertions.assertFalse(handle.consume());
+
+        registry.registerApis(new ApiConfig(API_NAME, 2, 10 * 1000, CLIENT));
+        Assertions.assertTrue(handle.consume());
+        Assertions.assertTrue(handle.consume());
+        Assertions.assertFalse(handle.consume());
+    }
+
+    @Test
+    @DisplayName("Should launch an ApiLimiterException when resolving a handle of an unknown client")
+    public void shouldFailOnUnknownClient() {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME + "/unknown-client", CLIENT));
+
+        try {
+            ApiLimiter.handle(API_NAME + "/unknown-client", "other-client");
+        } catch (ApiLimiterException e) {
+            Assertions.assertEquals("Client other-client non found for API /api/handle-test/unknown-client", e.getMessage());
+            return;
+        }
+
+        Assertions.fail();
+    }
+}
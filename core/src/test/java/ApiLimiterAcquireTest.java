@@ -0,0 +1,97 @@
+import com.dinuberinde.api.limiter.Algorithm;
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiter;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.VirtualClock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class ApiLimiterAcquireTest {
+    private final static String API_NAME = "/api/acquire-test";
+    private final static String CLIENT = "acquireclient";
+
+
+    @Test
+    @DisplayName("MaxCalls = 2, Timeframe = 300ms -> Should wait for the next timeframe to acquire the third call")
+    public void shouldWaitForNextTimeframe() throws InterruptedException {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME + "/fixed", 2, 300, CLIENT));
+
+        Assertions.assertTrue(ApiLimiter.acquire(API_NAME + "/fixed", CLIENT, 1, TimeUnit.SECONDS));
+        Assertions.assertTrue(ApiLimiter.acquire(API_NAME + "/fixed", CLIENT, 1, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        Assertions.assertTrue(ApiLimiter.acquire(API_NAME + "/fixed", CLIENT, 1, TimeUnit.SECONDS));
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 2, Timeframe = 10sec -> Should give up immediately if the timeout is shorter than the wait")
+    public void shouldGiveUpBeforeTimeout() throws InterruptedException {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME + "/timeout", 2, 10 * 1000, CLIENT));
+        Assertions.assertTrue(ApiLimiter.consume(API_NAME + "/timeout", CLIENT, 2));
+
+        long start = System.nanoTime();
+        Assertions.assertFalse(ApiLimiter.acquire(API_NAME + "/timeout", CLIENT, 1, TimeUnit.SECONDS));
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        Assertions.assertFalse(ApiLimiter.acquire(API_NAME + "/timeout", CLIENT, 3, 20, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 10, Timeframe = 1sec -> Should space the calls acquired with GCRA")
+    public void shouldSpaceGcraCalls() throws InterruptedException {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME + "/gcra", 10, 1000, CLIENT).withAlgorithm(Algorithm.GCRA).withBurst(1));
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= 4; i++) {
+            Assertions.assertTrue(ApiLimiter.acquire(API_NAME + "/gcra", CLIENT, 1, TimeUnit.SECONDS));
+        }
+
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 3, Timeframe = 300ms -> Should complete asynchronously when the next timeframe starts")
+    public void shouldAcquireAsync() throws Exception {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME + "/async", 3, 300, CLIENT));
+
+        Assertions.assertTrue(ApiLimiter.acquireAsync(API_NAME + "/async", CLIENT, 3, 1, TimeUnit.SECONDS).get());
+        CompletableFuture<Boolean> waiting = ApiLimiter.acquireAsync(API_NAME + "/async", CLIENT, 1, TimeUnit.SECONDS);
+        Assertions.assertFalse(waiting.isDone());
+        Assertions.assertTrue(waiting.get(2, TimeUnit.SECONDS));
+        Assertions.assertFalse(ApiLimiter.acquireAsync(API_NAME + "/async", CLIENT, 3, 10, TimeUnit.MILLISECONDS).get());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1, Timeframe = 50ms -> Should measure the timeout with the clock of the API")
+    public void shouldMeasureTimeoutWithClock() throws Exception {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().clock(clock).build();
+        registry.registerApis(new ApiConfig(API_NAME + "/clock", 1, 50, CLIENT));
+        Assertions.assertTrue(registry.consume(API_NAME + "/clock", CLIENT));
+
+        CompletableFuture<Boolean> waiting = registry.acquireAsync(API_NAME + "/clock", CLIENT, 1, 100, TimeUnit.MILLISECONDS);
+        Thread.sleep(300); // the timeout has expired in real time, but not for the clock of the API
+        Assertions.assertFalse(waiting.isDone());
+
+        clock.advance(50);
+        Assertions.assertTrue(waiting.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should launch an ApiLimiterException when acquiring an unknown API")
+    public void shouldFailOnUnknownApi() {
+        try {
+            ApiLimiter.acquireAsync(API_NAME + "/unknown", CLIENT, 1, TimeUnit.SECONDS);
+        } catch (ApiLimiterException e) {
+            Assertions.assertEquals("API /api/acquire-test/unknown not registered", e.getMessage());
+            return;
+        }
+
+        Assertions.fail();
+    }
+}
@@ -0,0 +1,83 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiter;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ConsumeRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class ApiLimiterBatchTest {
+    private final static String API_NAME = "/api/batch-test";
+    private final static String CLIENT = "zxcvbnmasdfg";
+
+
+    @Test
+    @DisplayName("MaxCalls = 10, Timeframe = 10sec -> Should consume 7 + 3 permits and fail 4 permits atomically")
+    public void shouldConsumePermitsAtomically() {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME + "/permits", 10, 10 * 1000, CLIENT));
+
+        Assertions.assertTrue(ApiLimiter.consume(API_NAME + "/permits", CLIENT, 7));
+        Assertions.assertFalse(ApiLimiter.consume(API_NAME + "/permits", CLIENT, 4)); // should consume none of the 4 permits
+        Assertions.assertTrue(ApiLimiter.consume(API_NAME + "/permits", CLIENT, 3));
+        Assertions.assertFalse(ApiLimiter.consume(API_NAME + "/permits", CLIENT));
+    }
+
+    @Test
+    @DisplayName("Should launch an ApiLimiterException when consuming non positive permits")
+    public void shouldFailOnNonPositivePermits() {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME + "/permits-zero", 10, 10 * 1000, CLIENT));
+
+        try {
+            ApiLimiter.consume(API_NAME + "/permits-zero", CLIENT, 0);
+        } catch (ApiLimiterException e) {
+            Assertions.assertEquals("Permits must be positive", e.getMessage());
+            return;
+        }
+
+        Assertions.fail();
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 10, Timeframe = 10sec -> Should consume requests in bulk in order for each API and client")
+    public void shouldConsumeAllInOrder() {
+        ApiLimiter.registerApis(
+                ApiConfig.of(API_NAME + "/bulk", 10, 10 * 1000, "client-1", "client-2")
+        );
+        ApiLimiter.registerApis(new ApiConfig(API_NAME + "/bulk-all/*", 10, 10 * 1000));
+
+        boolean[] consumed = ApiLimiter.consumeAll(Arrays.asList(
+                new ConsumeRequest(API_NAME + "/bulk", "client-1", 6),
+                new ConsumeRequest(API_NAME + "/bulk", "client-2", 10),
+                new ConsumeRequest(API_NAME + "/bulk", "client-1", 5),
+                new ConsumeRequest(API_NAME + "/bulk-all/a", 8),
+                new ConsumeRequest(API_NAME + "/bulk", "client-1", 4),
+                new ConsumeRequest(API_NAME + "/bulk-all/b", "client-1", 3),
+                new ConsumeRequest(API_NAME + "/bulk-all/c", 2)
+        ));
+
+        Assertions.assertArrayEquals(new boolean[] { true, true, false, true, true, false, true }, consumed);
+        Assertions.assertFalse(ApiLimiter.consume(API_NAME + "/bulk", "client-1"));
+        Assertions.assertFalse(ApiLimiter.consume(API_NAME + "/bulk-all/d"));
+    }
+
+    @Test
+    @DisplayName("Should not consume any request in bulk if an API is not registered")
+    public void shouldNotConsumeAnyOnUnregisteredApi() {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME + "/bulk-unregistered", 1, 10 * 1000));
+
+        try {
+            ApiLimiter.consumeAll(Arrays.asList(
+                    new ConsumeRequest(API_NAME + "/bulk-unregistered", 1),
+                    new ConsumeRequest("/api/failingApi", 1)
+            ));
+        } catch (ApiLimiterException e) {
+            Assertions.assertEquals("API /api/failingApi not registered", e.getMessage());
+            Assertions.assertTrue(ApiLimiter.consume(API_NAME + "/bulk-unregistered"));
+            return;
+        }
+
+        Assertions.fail();
+    }
+}
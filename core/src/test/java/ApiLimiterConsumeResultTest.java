@@ -0,0 +1,112 @@
+import com.dinuberinde.api.limiter.Algorithm;
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.ApiMetrics;
+import com.dinuberinde.api.limiter.ConsumeResult;
+import com.dinuberinde.api.limiter.VirtualClock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ApiLimiterConsumeResultTest {
+    private final static String API_NAME = "/api/consume-result-test";
+    private final static String CLIENT = "consumeresultclient";
+
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should describe the remaining calls, the reset time and the retry delay")
+    public void shouldDescribeFixedWindow() {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().clock(clock).build();
+        registry.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT));
+        ConsumeResult result = new ConsumeResult();
+
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT, 2, result));
+        assertResult(result, true, 3, 10 * 1000, 0);
+
+        clock.advance(4 * 1000);
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT, 4, result));
+        assertResult(result, false, 3, 6 * 1000, 6 * 1000);
+
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT, 6, result));
+        Assertions.assertEquals(ConsumeResult.NEVER, result.getRetryAfter());
+
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT, 3, result));
+        assertResult(result, true, 0, 6 * 1000, 0);
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 10, Timeframe = 1sec -> Should describe the quota of the sliding window and GCRA")
+    public void shouldDescribeOtherAlgorithms() {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().clock(clock).build();
+        registry.registerApis(new ApiConfig(API_NAME + "/sliding", 10, 1000, CLIENT).withAlgorithm(Algorithm.SLIDING_WINDOW),
+                new ApiConfig(API_NAME + "/gcra", 10, 1000, CLIENT).withAlgorithm(Algorithm.GCRA));
+        ConsumeResult result = new ConsumeResult();
+
+        Assertions.assertTrue(registry.consume(API_NAME + "/gcra", CLIENT, 10, result));
+        assertResult(result, true, 0, 1000, 0);
+        Assertions.assertFalse(registry.consume(API_NAME + "/gcra", CLIENT, 1, result));
+        assertResult(result, false, 0, 1000, 100);
+
+        Assertions.assertTrue(registry.consume(API_NAME + "/sliding", CLIENT, 4, result));
+        Assertions.assertTrue(result.isConsumed());
+        Assertions.assertEquals(6, result.getRemaining());
+        Assertions.assertTrue(result.getResetTime() > 1000 && result.getResetTime() <= 2000);
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should peek the quota without consuming it")
+    public void shouldPeekWithoutConsuming() {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().clock(clock).build();
+        registry.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT));
+        ConsumeResult result = new ConsumeResult();
+
+        assertResult(registry.peek(API_NAME, CLIENT, result), true, 5, 0, 0);
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT, 5));
+        assertResult(registry.peek(API_NAME, CLIENT, result), false, 0, 10 * 1000, 10 * 1000);
+        assertResult(registry.peek(API_NAME, CLIENT, result), false, 0, 10 * 1000, 10 * 1000);
+        Assertions.assertEquals(1, registry.getMetrics().getAllowed());
+        Assertions.assertEquals(0, registry.getMetrics().getRejected());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5 per client, 3 per API, Timeframe = 10sec -> Should retry after the parent which rejected the calls")
+    public void shouldRetryAfterParent() {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().clock(clock).build();
+        registry.registerApis(new ApiConfig(API_NAME, 3, 10 * 1000), new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT).withParent(API_NAME));
+        ConsumeResult result = new ConsumeResult();
+
+        Assertions.assertTrue(registry.consume(API_NAME, "consumeresultother", 3));
+        clock.advance(1000);
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT, 1, result));
+        Assertions.assertFalse(result.isConsumed());
+        Assertions.assertEquals(9 * 1000, result.getRetryAfter());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5 per client, 3 per API, Timeframe = 10sec -> Should count the rejection of the parent and describe the released calls")
+    public void shouldCountRejectionOfParent() {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().clock(clock).build();
+        registry.registerApis(new ApiConfig(API_NAME, 3, 10 * 1000), new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT).withParent(API_NAME));
+        ConsumeResult result = new ConsumeResult();
+
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT, 2, result));
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT, 2, result));
+        assertResult(result, false, 3, 10 * 1000, 10 * 1000);
+
+        ApiMetrics metrics = registry.getMetrics().getApis().get(API_NAME);
+        Assertions.assertEquals(1, metrics.getRejectedByClient().get(ApiConfig.ALL_CLIENTS));
+        Assertions.assertEquals(1, metrics.getRejectedByClient().get(CLIENT));
+    }
+
+    private static void assertResult(ConsumeResult result, boolean consumed, long remaining, long resetTime, long retryAfter) {
+        Assertions.assertEquals(consumed, result.isConsumed());
+        Assertions.assertEquals(remaining, result.getRemaining());
+        Assertions.assertEquals(resetTime, result.getResetTime());
+        Assertions.assertEquals(retryAfter, result.getRetryAfter());
+    }
+}
@@ -0,0 +1,174 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.VirtualClock;
+import com.dinuberinde.api.limiter.internal.Limiter;
+import com.dinuberinde.api.limiter.internal.Registry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ApiLimiterHierarchyTest {
+    private final static String ROOT_API = "/api/hierarchy-test/*";
+    private final static String API_NAME = "/api/hierarchy-test/orders";
+    private final static String CLIENT_1 = "hierarchyclient1";
+    private final static String CLIENT_2 = "hierarchyclient2";
+
+
+    @Test
+    @DisplayName("MaxCalls = 3 per client, 5 per API, Timeframe = 10sec -> Should limit each client and the API as a whole")
+    public void shouldLimitClientsAndApi() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(
+                new ApiConfig(API_NAME, 5, 10 * 1000),
+                new ApiConfig(API_NAME, 3, 10 * 1000, CLIENT_1).withParent(API_NAME),
+                new ApiConfig(API_NAME, 3, 10 * 1000, CLIENT_2).withParent(API_NAME)
+        );
+
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT_1, 3));
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT_1));
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT_2, 2));
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT_2));
+
+        // clients without their own configuration are limited by the API only, which is exhausted
+        Assertions.assertFalse(registry.consume(API_NAME, "hierarchyclient3"));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5 per API, 4 per root API, Timeframe = 10sec and 1sec -> Should release the calls of the API rejected by the root API")
+    public void shouldReleaseRejectedCalls() {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().clock(clock).build();
+        registry.registerApis(
+                new ApiConfig(ROOT_API, 4, 1000),
+                new ApiConfig(API_NAME, 5, 10 * 1000).withParent(ROOT_API)
+        );
+
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT_1, 4));
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT_1));
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT_1));
+
+        // the root timeframe expired, while the API still counts the 4 calls allowed by the root only
+        clock.advance(1000);
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT_1));
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT_1));
+
+        // a sibling API is limited by the root as well
+        registry.registerApis(new ApiConfig("/api/hierarchy-test/invoices", 10, 10 * 1000).withParent(ROOT_API));
+        Assertions.assertTrue(registry.consume("/api/hierarchy-test/invoices", CLIENT_1, 3));
+        Assertions.assertFalse(registry.consume("/api/hierarchy-test/invoices", CLIENT_1));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 2 per client, 3 per API, 4 per root API, Timeframe = 10sec -> Should never allow more calls than any level of the chain")
+    public void shouldRespectChainInParallel() throws InterruptedException {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(
+                new ApiConfig(ROOT_API, 4, 10 * 1000),
+                new ApiConfig(API_NAME, 3, 10 * 1000).withParent(ROOT_API),
+                new ApiConfig(API_NAME, 2, 10 * 1000, CLIENT_1).withParent(API_NAME),
+                new ApiConfig(API_NAME, 2, 10 * 1000, CLIENT_2).withParent(API_NAME),
+                new ApiConfig("/api/hierarchy-test/invoices", 10, 10 * 1000).withParent(ROOT_API)
+        );
+
+        AtomicInteger orders = new AtomicInteger();
+        AtomicInteger invoices = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            String client = i % 2 == 0 ? CLIENT_1 : CLIENT_2;
+            boolean invoice = i % 3 == 0;
+            executor.execute(() -> {
+                if (invoice) {
+                    if (registry.consume("/api/hierarchy-test/invoices", client)) {
+                        invoices.incrementAndGet();
+                    }
+                } else if (registry.consume(API_NAME, client)) {
+                    orders.incrementAndGet();
+                }
+            });
+        }
+
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertTrue(orders.get() <= 3);
+        Assertions.assertTrue(orders.get() + invoices.get() <= 4);
+    }
+
+    @Test
+    @DisplayName("Should reject parents not registered for all clients and cycles of parents")
+    public void shouldRejectInvalidParents() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+
+        Assertions.assertThrows(ApiLimiterException.class, () -> registry.registerApis(new ApiConfig(API_NAME, CLIENT_1).withParent(ROOT_API)));
+        Assertions.assertThrows(ApiLimiterException.class, () -> registry.registerApis(new ApiConfig(API_NAME).withParent(API_NAME)));
+        Assertions.assertThrows(ApiLimiterException.class, () -> registry.registerApis(
+                new ApiConfig(ROOT_API).withParent(API_NAME),
+                new ApiConfig(API_NAME).withParent(ROOT_API)
+        ));
+        Assertions.assertTrue(registry.getConfiguredApisName().isEmpty());
+
+        registry.registerApis(new ApiConfig(ROOT_API), new ApiConfig(API_NAME).withParent(ROOT_API));
+        Assertions.assertThrows(ApiLimiterException.class, () -> registry.unregisterApis(ROOT_API));
+        Assertions.assertTrue(registry.consume(API_NAME));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 10 per API, 4 then 2 per root API, Timeframe = 10sec -> Should keep the parents of a published registry when the root API is reconfigured")
+    public void shouldKeepParentsOfPublishedRegistry() {
+        VirtualClock clock = new VirtualClock();
+        Registry published = Registry.EMPTY.reconfigure(api -> new Limiter(api, clock),
+                new ApiConfig(ROOT_API, 4, 10 * 1000),
+                new ApiConfig(API_NAME, 10, 10 * 1000).withParent(ROOT_API)
+        );
+        Registry reconfigured = published.reconfigure(api -> new Limiter(api, clock),
+                new ApiConfig(ROOT_API, 2, 10 * 1000),
+                new ApiConfig(API_NAME, 10, 10 * 1000).withParent(ROOT_API)
+        );
+
+        // the limiter of the API is unchanged, yet only the reconfigured registry charges the new root API
+        Limiter previous = published.getClientLimiters(API_NAME).get(ApiConfig.ALL_CLIENTS);
+        Limiter current = reconfigured.getClientLimiters(API_NAME).get(ApiConfig.ALL_CLIENTS);
+        Assertions.assertTrue(previous.consume(CLIENT_1, 3));
+        Assertions.assertFalse(current.consume(CLIENT_1, 3));
+        Assertions.assertTrue(current.consume(CLIENT_1, 2));
+
+        // both share the calls of the API
+        Assertions.assertFalse(previous.consume(CLIENT_1, 6));
+        Assertions.assertTrue(previous.consume(CLIENT_1, 1));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 3 per client, 5 per API, Timeframe = 10sec -> Should reject a per-client API and the same API for all clients")
+    public void shouldRejectPerClientAndAllClients() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+
+        // both would be kept for all clients, so that one would silently replace the other
+        Assertions.assertThrows(ApiLimiterException.class, () -> registry.registerApis(
+                new ApiConfig(API_NAME, 5, 10 * 1000),
+                new ApiConfig(API_NAME, 3, 10 * 1000).perClient().withParent(API_NAME)
+        ));
+        Assertions.assertThrows(ApiLimiterException.class, () -> registry.reconfigure(
+                new ApiConfig(API_NAME, 3, 10 * 1000).perClient(),
+                new ApiConfig(API_NAME, 5, 10 * 1000)
+        ));
+        Assertions.assertTrue(registry.getConfiguredApisName().isEmpty());
+
+        registry.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000));
+        Assertions.assertThrows(ApiLimiterException.class, () -> registry.registerApis(new ApiConfig(API_NAME, 3, 10 * 1000).perClient()));
+
+        // the clients of a per-client API are capped as a whole by a root API instead
+        registry.reconfigure(
+                new ApiConfig(ROOT_API, 5, 10 * 1000),
+                new ApiConfig(API_NAME, 3, 10 * 1000).perClient().withParent(ROOT_API)
+        );
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT_1, 3));
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT_1));
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT_2, 2));
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT_2));
+    }
+}
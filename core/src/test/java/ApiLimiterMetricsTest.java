@@ -0,0 +1,106 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiter;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterMXBean;
+import com.dinuberinde.api.limiter.ApiLimiterMetrics;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.ApiMetrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+public class ApiLimiterMetricsTest {
+    private final static String API_NAME = "/api/metrics-test";
+    private final static String CLIENT = "metricsclient";
+
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should count 5 allowed, 2 rejected and 1 unknown client call")
+    public void shouldCountDecisions() {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME, CLIENT));
+
+        for (int i = 1; i <= 7; i++) {
+            ApiLimiter.consume(API_NAME, CLIENT);
+        }
+        Assertions.assertThrows(ApiLimiterException.class, () -> ApiLimiter.consume(API_NAME, "unknown-client"));
+
+        ApiMetrics metrics = ApiLimiter.getMetrics().getApis().get(API_NAME);
+        Assertions.assertEquals(5, metrics.getAllowed());
+        Assertions.assertEquals(2, metrics.getRejected());
+        Assertions.assertEquals(1, metrics.getUnknownClients());
+        Assertions.assertEquals(5, metrics.getAllowedByClient().get(CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 2, Timeframe = 10sec -> Should keep counting the decisions when the API is registered again")
+    public void shouldKeepCountersAcrossRegistrations() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, 2, 10 * 1000, CLIENT));
+        for (int i = 1; i <= 3; i++) {
+            registry.consume(API_NAME, CLIENT);
+        }
+
+        registry.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT));
+        registry.consume(API_NAME, CLIENT);
+        registry.reconfigure(new ApiConfig(API_NAME, 1, 10 * 1000, CLIENT));
+        registry.consume(API_NAME, CLIENT);
+
+        ApiMetrics metrics = registry.getMetrics().getApis().get(API_NAME);
+        Assertions.assertEquals(3, metrics.getAllowed());
+        Assertions.assertEquals(2, metrics.getRejected());
+
+        registry.unregisterApis(API_NAME);
+        registry.registerApis(new ApiConfig(API_NAME, 2, 10 * 1000, CLIENT));
+        Assertions.assertEquals(0, registry.getMetrics().getApis().get(API_NAME).getAllowed());
+    }
+
+    @Test
+    @DisplayName("Should count the calls of unregistered APIs")
+    public void shouldCountUnknownApis() {
+        long unknownApis = ApiLimiter.getMetrics().getUnknownApis();
+
+        Assertions.assertThrows(ApiLimiterException.class, () -> ApiLimiter.consume(API_NAME + "/unregistered"));
+        Assertions.assertEquals(unknownApis + 1, ApiLimiter.getMetrics().getUnknownApis());
+    }
+
+    @Test
+    @DisplayName("Should sample the latency of every consume call with rate 1")
+    public void shouldSampleLatencies() {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME + "/latency", 100, 10 * 1000));
+        long sampled = Arrays.stream(ApiLimiter.getMetrics().getLatencyHistogram()).sum();
+
+        ApiLimiter.setLatencySampling(1);
+        try {
+            for (int i = 1; i <= 10; i++) {
+                ApiLimiter.consume(API_NAME + "/latency");
+            }
+        } finally {
+            ApiLimiter.setLatencySampling(0);
+        }
+
+        ApiLimiterMetrics metrics = ApiLimiter.getMetrics();
+        Assertions.assertEquals(sampled + 10, Arrays.stream(metrics.getLatencyHistogram()).sum());
+        Assertions.assertTrue(metrics.getLatencyPercentile(99) > 0);
+    }
+
+    @Test
+    @DisplayName("Should expose the metrics through JMX")
+    public void shouldExposeMetricsThroughJmx() throws Exception {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME + "/jmx", 1, 10 * 1000));
+        ApiLimiter.consume(API_NAME + "/jmx");
+        ApiLimiter.consume(API_NAME + "/jmx");
+
+        ApiLimiter.registerMBean();
+        ApiLimiter.registerMBean(); // should ignore a second registration
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(ApiLimiterMXBean.OBJECT_NAME);
+        Assertions.assertTrue((Long) server.getAttribute(name, "Rejected") >= 1);
+        Assertions.assertNotNull(server.getAttribute(name, "RejectedByApi"));
+    }
+}
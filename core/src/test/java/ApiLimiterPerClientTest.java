@@ -0,0 +1,86 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.ConsumeRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class ApiLimiterPerClientTest {
+    private final static String API_NAME = "/api/per-client-test";
+    private final static String CLIENT_1 = "perclient1";
+    private final static String CLIENT_2 = "perclient2";
+
+
+    @Test
+    @DisplayName("MaxCalls = 3, Timeframe = 10sec -> Should limit each client separately without registering it")
+    public void shouldLimitEachClient() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, 3, 10 * 1000).perClient());
+
+        for (int i = 0; i < 100; i++) {
+            String client = "perclient" + i;
+            Assertions.assertTrue(registry.consume(API_NAME, client, 3));
+            Assertions.assertFalse(registry.consume(API_NAME, client));
+        }
+
+        Assertions.assertFalse(registry.handle(API_NAME, "perclient0").consume());
+        Assertions.assertTrue(registry.handle(API_NAME, "perclient100").consume(3));
+        Assertions.assertEquals(100 + 1, registry.getMetrics().getAllowed());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 3, Timeframe = 10sec, MaxClients = 2 -> Should reject new clients beyond the max clients")
+    public void shouldBoundClients() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, 3, 10 * 1000).perClient().withMaxClients(2));
+
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT_1));
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT_2));
+        Assertions.assertFalse(registry.consume(API_NAME, "perclient3"));
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT_1));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 3, Timeframe = 10sec -> Should consume the batches of each client separately")
+    public void shouldConsumeBatchesOfEachClient() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, 3, 10 * 1000).perClient());
+
+        boolean[] consumed = registry.consumeAll(Arrays.asList(
+                new ConsumeRequest(API_NAME, CLIENT_1, 2),
+                new ConsumeRequest(API_NAME, CLIENT_2, 2),
+                new ConsumeRequest(API_NAME, CLIENT_1, 2),
+                new ConsumeRequest(API_NAME, CLIENT_2, 1)
+        ));
+
+        Assertions.assertArrayEquals(new boolean[] { true, true, false, true }, consumed);
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 3 per client, 4 per root API, Timeframe = 10sec -> Should limit each client and the root API as a whole")
+    public void shouldChainToParent() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(
+                new ApiConfig("/api/per-client-root/*", 4, 10 * 1000),
+                new ApiConfig("/api/per-client-root/orders", 3, 10 * 1000).perClient().withParent("/api/per-client-root/*")
+        );
+
+        Assertions.assertTrue(registry.consume("/api/per-client-root/orders", CLIENT_1, 3));
+        Assertions.assertFalse(registry.consume("/api/per-client-root/orders", CLIENT_1));
+        Assertions.assertTrue(registry.consume("/api/per-client-root/orders", CLIENT_2));
+        Assertions.assertFalse(registry.consume("/api/per-client-root/orders", CLIENT_2));
+    }
+
+    @Test
+    @DisplayName("Should reject null clients and templates of configurations for a single client")
+    public void shouldRejectInvalidClients() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, 3, 10 * 1000).perClient());
+
+        Assertions.assertThrows(ApiLimiterException.class, () -> registry.consume(API_NAME, null));
+        Assertions.assertThrows(ApiLimiterException.class, () -> new ApiConfig(API_NAME, CLIENT_1).perClient());
+    }
+}
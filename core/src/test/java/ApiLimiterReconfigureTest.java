@@ -0,0 +1,67 @@
+import com.dinuberinde.api.limiter.Algorithm;
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+public class ApiLimiterReconfigureTest {
+    private final static String API_NAME = "/api/reconfigure-test";
+    private final static String CLIENT = "reconfigureclient";
+
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should keep the calls of unchanged APIs and drop the removed APIs")
+    public void shouldKeepUnchangedApis() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, CLIENT), new ApiConfig(API_NAME + "/removed", CLIENT));
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT, 5));
+
+        registry.reconfigure(new ApiConfig(API_NAME, CLIENT), new ApiConfig(API_NAME + "/added", CLIENT));
+
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(API_NAME, API_NAME + "/added")), new HashSet<>(registry.getConfiguredApisName()));
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT));
+        Assertions.assertTrue(registry.consume(API_NAME + "/added", CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5 -> 8, Timeframe = 10sec -> Should carry over the calls of the clients of a changed API")
+    public void shouldCarryOverChangedApis() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT), new ApiConfig(API_NAME + "/gcra", 5, 10 * 1000, CLIENT));
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT, 5));
+        Assertions.assertTrue(registry.consume(API_NAME + "/gcra", CLIENT, 5));
+
+        registry.reconfigure(new ApiConfig(API_NAME, 8, 10 * 1000, CLIENT), new ApiConfig(API_NAME + "/gcra", 5, 10 * 1000, CLIENT).withAlgorithm(Algorithm.GCRA));
+
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT, 3));
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT));
+        Assertions.assertTrue(registry.consume(API_NAME + "/gcra", CLIENT, 5));
+    }
+
+    @Test
+    @DisplayName("Should unregister root APIs and their children")
+    public void shouldUnregisterRootApis() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME + "/*", CLIENT), new ApiConfig(API_NAME + "/kept", CLIENT));
+        Assertions.assertTrue(registry.consume(API_NAME + "/child", CLIENT));
+
+        registry.unregisterApis(API_NAME + "/*");
+
+        Assertions.assertEquals(Collections.singletonList(API_NAME + "/kept"), registry.getConfiguredApisName());
+        Assertions.assertTrue(registry.consume(API_NAME + "/kept", CLIENT));
+        try {
+            registry.consume(API_NAME + "/child", CLIENT);
+        } catch (ApiLimiterException e) {
+            Assertions.assertEquals("API /api/reconfigure-test/child not registered", e.getMessage());
+            return;
+        }
+
+        Assertions.fail();
+    }
+}
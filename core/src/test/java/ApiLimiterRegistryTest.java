@@ -0,0 +1,83 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiter;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.VirtualClock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+public class ApiLimiterRegistryTest {
+    private final static String API_NAME = "/api/registry-test";
+    private final static String CLIENT = "registryclient";
+
+
+    @Test
+    @DisplayName("MaxCalls = 2, Timeframe = 10sec -> Should limit the same API independently in each registry")
+    public void shouldLimitIndependently() {
+        ApiLimiterRegistry registry1 = ApiLimiterRegistry.builder().build();
+        ApiLimiterRegistry registry2 = ApiLimiterRegistry.builder().build();
+        registry1.registerApis(new ApiConfig(API_NAME, 2, 10 * 1000, CLIENT));
+        registry2.registerApis(new ApiConfig(API_NAME, 2, 10 * 1000, CLIENT));
+
+        Assertions.assertTrue(registry1.consume(API_NAME, CLIENT));
+        Assertions.assertTrue(registry1.consume(API_NAME, CLIENT));
+        Assertions.assertFalse(registry1.consume(API_NAME, CLIENT));
+
+        Assertions.assertTrue(registry2.consume(API_NAME, CLIENT));
+        Assertions.assertTrue(registry2.consume(API_NAME, CLIENT));
+        Assertions.assertFalse(registry2.consume(API_NAME, CLIENT));
+
+        Assertions.assertFalse(ApiLimiter.isApiConfigured(API_NAME));
+        Assertions.assertFalse(ApiLimiter.getDefault().isApiConfigured(API_NAME));
+    }
+
+    @Test
+    @DisplayName("Should launch an ApiLimiterException when consuming an API registered in another registry")
+    public void shouldFailOnApiOfAnotherRegistry() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME + "/other"));
+
+        try {
+            ApiLimiterRegistry.builder().build().consume(API_NAME + "/other");
+        } catch (ApiLimiterException e) {
+            Assertions.assertEquals("API /api/registry-test/other not registered", e.getMessage());
+            return;
+        }
+
+        Assertions.fail();
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should use the clock of the builder")
+    public void shouldUseClockOfBuilder() {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().clock(clock).build();
+        registry.registerApis(new ApiConfig(API_NAME, CLIENT));
+
+        for (int i = 1; i <= 5; i++) {
+            Assertions.assertTrue(registry.consume(API_NAME, CLIENT));
+        }
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT));
+
+        clock.advance(10 * 1000); // let the timeframe reset
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT));
+    }
+
+    @Test
+    @DisplayName("Should register the MBean of a registry with its own name")
+    public void shouldRegisterMBeanWithOwnName() throws Exception {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, 1, 10 * 1000));
+        registry.consume(API_NAME);
+        registry.consume(API_NAME);
+
+        String objectName = "com.dinuberinde.api.limiter:type=ApiLimiter,name=registry-test";
+        registry.registerMBean(objectName);
+
+        Assertions.assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(objectName), "Rejected"));
+    }
+}
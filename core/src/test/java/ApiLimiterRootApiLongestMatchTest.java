@@ -0,0 +1,53 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiter;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+public class ApiLimiterRootApiLongestMatchTest {
+    private final static String ROOT_API = "/longest-match/*";
+    private final static String CHILD_ROOT_API = "/longest-match/orders/*";
+
+
+    @Test
+    @DisplayName("Should resolve an API to the most specific root API")
+    public void shouldResolveTheMostSpecificRootApi() {
+        ApiLimiter.registerApis(
+                new ApiConfig(ROOT_API, 1, 10 * 1000),
+                new ApiConfig(CHILD_ROOT_API, 3, 10 * 1000)
+        );
+
+        Assertions.assertTrue(ApiLimiter.consume("/longest-match/orders/1"));
+        Assertions.assertTrue(ApiLimiter.consume("/longest-match/orders/2"));
+        Assertions.assertTrue(ApiLimiter.consume("/longest-match/orders/3"));
+        Assertions.assertFalse(ApiLimiter.consume("/longest-match/orders/4")); // should not consume the 4th call
+
+        Assertions.assertTrue(ApiLimiter.consume("/longest-match/ordersx"));
+        Assertions.assertFalse(ApiLimiter.consume("/longest-match/users")); // should not consume the 2nd call
+    }
+
+    @Test
+    @DisplayName("Should resolve an API among 500 root APIs sharing a prefix")
+    public void shouldResolveAmong500RootApis() {
+        ApiLimiter.registerApis(IntStream.range(0, 500)
+                .mapToObj(num -> new ApiConfig("/longest-match-many/" + num + "/*", 2, 10 * 1000))
+                .toArray(ApiConfig[]::new));
+
+        Assertions.assertTrue(ApiLimiter.consume("/longest-match-many/42/a"));
+        Assertions.assertTrue(ApiLimiter.consume("/longest-match-many/42/b"));
+        Assertions.assertFalse(ApiLimiter.consume("/longest-match-many/42/c")); // should not consume the 3rd call
+        Assertions.assertTrue(ApiLimiter.consume("/longest-match-many/421/a"));
+
+        try {
+            ApiLimiter.consume("/longest-match-many/x");
+        } catch (ApiLimiterException e) {
+            Assertions.assertEquals("API /longest-match-many/x not registered", e.getMessage());
+            return;
+        }
+
+        Assertions.fail();
+    }
+}
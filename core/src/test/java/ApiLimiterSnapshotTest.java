@@ -0,0 +1,151 @@
+import com.dinuberinde.api.limiter.Algorithm;
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.VirtualClock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+
+public class ApiLimiterSnapshotTest {
+    private final static String API_NAME = "/api/snapshot-test";
+    private final static String CLIENT = "snapshotclient";
+
+    @TempDir
+    Path directory;
+
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should restore the calls of the clients in a new registry")
+    public void shouldRestoreFixedWindow() {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry before = ApiLimiterRegistry.builder().clock(clock).build();
+        before.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT));
+        clock.advance(5 * 1000);
+        Assertions.assertTrue(before.consume(API_NAME, CLIENT, 5));
+
+        VirtualClock restartedClock = new VirtualClock();
+        ApiLimiterRegistry after = ApiLimiterRegistry.builder().clock(restartedClock).build();
+        after.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT));
+        Assertions.assertEquals(1, after.readSnapshot(snapshot(before)));
+
+        Assertions.assertFalse(after.consume(API_NAME, CLIENT));
+        restartedClock.advance(9 * 1000);
+        Assertions.assertFalse(after.consume(API_NAME, CLIENT));
+        restartedClock.advance(1000);
+        Assertions.assertTrue(after.consume(API_NAME, CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 10, Timeframe = 1sec -> Should restore the calls of the clients with the sliding window and GCRA")
+    public void shouldRestoreOtherAlgorithms() {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry before = ApiLimiterRegistry.builder().clock(clock).build();
+        before.registerApis(new ApiConfig(API_NAME + "/sliding", 10, 1000, CLIENT).withAlgorithm(Algorithm.SLIDING_WINDOW),
+                new ApiConfig(API_NAME + "/gcra", 10, 1000, CLIENT).withAlgorithm(Algorithm.GCRA));
+        Assertions.assertTrue(before.consume(API_NAME + "/sliding", CLIENT, 10));
+        Assertions.assertTrue(before.consume(API_NAME + "/gcra", CLIENT, 10));
+
+        VirtualClock restartedClock = new VirtualClock();
+        ApiLimiterRegistry after = ApiLimiterRegistry.builder().clock(restartedClock).build();
+        after.registerApis(new ApiConfig(API_NAME + "/sliding", 10, 1000, CLIENT).withAlgorithm(Algorithm.SLIDING_WINDOW),
+                new ApiConfig(API_NAME + "/gcra", 10, 1000, CLIENT).withAlgorithm(Algorithm.GCRA));
+        Assertions.assertEquals(2, after.readSnapshot(snapshot(before)));
+
+        Assertions.assertFalse(after.consume(API_NAME + "/sliding", CLIENT));
+        Assertions.assertFalse(after.consume(API_NAME + "/gcra", CLIENT));
+        restartedClock.advance(100);
+        Assertions.assertTrue(after.consume(API_NAME + "/gcra", CLIENT));
+        Assertions.assertFalse(after.consume(API_NAME + "/gcra", CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should skip idle clients and APIs registered with another configuration")
+    public void shouldSkipIdleClientsAndOtherConfigurations() {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry before = ApiLimiterRegistry.builder().clock(clock).build();
+        before.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT), new ApiConfig(API_NAME + "/changed", 5, 10 * 1000, CLIENT),
+                new ApiConfig(API_NAME + "/removed", 5, 10 * 1000, CLIENT), new ApiConfig(API_NAME + "/idle", 5, 1000, CLIENT));
+        before.consume(API_NAME, CLIENT);
+        before.consume(API_NAME + "/changed", CLIENT);
+        before.consume(API_NAME + "/removed", CLIENT);
+        before.consume(API_NAME + "/idle", CLIENT);
+        clock.advance(1000);
+
+        ApiLimiterRegistry after = ApiLimiterRegistry.builder().build();
+        after.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT), new ApiConfig(API_NAME + "/changed", 6, 10 * 1000, CLIENT),
+                new ApiConfig(API_NAME + "/idle", 5, 1000, CLIENT));
+
+        Assertions.assertEquals(1, after.readSnapshot(snapshot(before)));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should measure the time elapsed since the snapshot with the wall clock")
+    public void shouldMeasureElapsedTimeWithWallClock() {
+        VirtualClock wallClock = new VirtualClock();
+        ApiLimiterRegistry before = ApiLimiterRegistry.builder().wallClock(wallClock).build();
+        before.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT));
+        Assertions.assertTrue(before.consume(API_NAME, CLIENT, 5));
+        ByteArrayInputStream snapshot = snapshot(before);
+
+        wallClock.advance(10 * 1000); // the restart took longer than the timeframe
+        ApiLimiterRegistry after = ApiLimiterRegistry.builder().wallClock(wallClock).build();
+        after.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT));
+        Assertions.assertEquals(0, after.readSnapshot(snapshot));
+        Assertions.assertTrue(after.consume(API_NAME, CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should restore the clients of the heap in an off heap table")
+    public void shouldRestoreInOffHeapTable() {
+        ApiLimiterRegistry before = ApiLimiterRegistry.builder().build();
+        before.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT));
+        Assertions.assertTrue(before.consume(API_NAME, CLIENT, 5));
+
+        ApiLimiterRegistry after = ApiLimiterRegistry.builder().offHeap(64).build();
+        after.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT));
+        Assertions.assertEquals(1, after.readSnapshot(snapshot(before)));
+        Assertions.assertFalse(after.consume(API_NAME, CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should save and load a snapshot file")
+    public void shouldSaveAndLoadFile() {
+        Path file = directory.resolve("limiter.snapshot");
+        ApiLimiterRegistry before = ApiLimiterRegistry.builder().build();
+        before.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT));
+        Assertions.assertTrue(before.consume(API_NAME, CLIENT, 5));
+
+        ApiLimiterRegistry after = ApiLimiterRegistry.builder().build();
+        after.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT));
+        Assertions.assertEquals(0, after.loadSnapshot(file));
+
+        before.saveSnapshot(file);
+        Assertions.assertEquals(1, after.loadSnapshot(file));
+        Assertions.assertFalse(after.consume(API_NAME, CLIENT));
+    }
+
+    @Test
+    @DisplayName("Should launch an ApiLimiterException when reading something else than a snapshot")
+    public void shouldRejectInvalidSnapshot() {
+        try {
+            ApiLimiterRegistry.builder().build().readSnapshot(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+        } catch (ApiLimiterException e) {
+            Assertions.assertEquals("Not a snapshot of this version of the limiter", e.getMessage());
+            return;
+        }
+
+        Assertions.fail();
+    }
+
+    private static ByteArrayInputStream snapshot(ApiLimiterRegistry registry) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        registry.writeSnapshot(out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+}
@@ -0,0 +1,127 @@
+import com.dinuberinde.api.limiter.Algorithm;
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.VirtualClock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ApiLimiterStripesTest {
+    private final static String ROOT_API = "/api/stripes-test/*";
+    private final static String API_NAME = "/api/stripes-test";
+
+
+    @Test
+    @DisplayName("MaxCalls = 103, Timeframe = 10sec, Stripes = 4 -> Should borrow from the other stripes up to the max calls")
+    public void shouldBorrowFromOtherStripes() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, 103, 10 * 1000).withStripes(4));
+
+        for (int i = 0; i < 103; i++) {
+            Assertions.assertTrue(registry.consume(API_NAME));
+        }
+
+        Assertions.assertFalse(registry.consume(API_NAME));
+        Assertions.assertEquals(1, registry.getMetrics().getApis().get(API_NAME).getRejected());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1000, Timeframe = 10sec, Stripes = 8 -> Should never exceed the max calls in parallel")
+    public void shouldNotExceedMaxCallsInParallel() throws InterruptedException {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, 1000, 10 * 1000).withStripes(8));
+
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 5000; i++) {
+            executor.execute(() -> {
+                if (registry.consume(API_NAME)) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(1000, allowed.get());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 10, Timeframe = 1sec, Stripes = 4 -> Should always reject more calls than the share of a stripe")
+    public void shouldRejectMoreCallsThanShare() throws InterruptedException {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, 10, 1000).withStripes(4));
+
+        // the shares of the stripes are 3, 3, 2 and 2 calls
+        Assertions.assertFalse(registry.consume(API_NAME, ApiConfig.ALL_CLIENTS, 4));
+        Assertions.assertFalse(registry.acquire(API_NAME, ApiConfig.ALL_CLIENTS, 4, 5, TimeUnit.SECONDS));
+        Assertions.assertTrue(registry.consume(API_NAME, ApiConfig.ALL_CLIENTS, 3));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 8 per API, 2 per root API, Timeframe = 100sec and 1sec, Stripes = 4 -> Should release the calls from the stripe which served them")
+    public void shouldReleaseFromServingStripe() {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().clock(clock).build();
+        registry.registerApis(
+                new ApiConfig(ROOT_API, 2, 1000),
+                new ApiConfig(API_NAME, 8, 100 * 1000).withStripes(4).withParent(ROOT_API)
+        );
+
+        // the stripe of this thread has 1 call left, hence the next 2 calls are borrowed from another stripe
+        // and released into it when the root API rejects them
+        Assertions.assertTrue(registry.consume(API_NAME));
+        Assertions.assertFalse(registry.consume(API_NAME, ApiConfig.ALL_CLIENTS, 2));
+
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            clock.advance(1000);
+            if (registry.consume(API_NAME)) {
+                allowed++;
+            }
+        }
+
+        Assertions.assertEquals(7, allowed);
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 10, Timeframe = 1sec, Stripes = 2 -> Should wait for the stripes and restore them from snapshots")
+    public void shouldWaitAndRestoreStripes() throws Exception {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry before = ApiLimiterRegistry.builder().clock(clock).build();
+        before.registerApis(new ApiConfig(API_NAME, 10, 1000).withAlgorithm(Algorithm.GCRA).withStripes(2));
+        Assertions.assertTrue(before.handle(API_NAME).consume(5));
+        Assertions.assertTrue(before.handle(API_NAME).consume(5));
+        Assertions.assertFalse(before.acquire(API_NAME, ApiConfig.ALL_CLIENTS, 0, TimeUnit.MILLISECONDS));
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        before.writeSnapshot(snapshot);
+
+        VirtualClock restartedClock = new VirtualClock();
+        ApiLimiterRegistry after = ApiLimiterRegistry.builder().clock(restartedClock).build();
+        after.registerApis(new ApiConfig(API_NAME, 10, 1000).withAlgorithm(Algorithm.GCRA).withStripes(2));
+        Assertions.assertEquals(2, after.readSnapshot(new ByteArrayInputStream(snapshot.toByteArray())));
+        Assertions.assertFalse(after.consume(API_NAME));
+
+        restartedClock.advance(400);
+        Assertions.assertTrue(after.consume(API_NAME, ApiConfig.ALL_CLIENTS, 2));
+        Assertions.assertFalse(after.consume(API_NAME, ApiConfig.ALL_CLIENTS, 3));
+    }
+
+    @Test
+    @DisplayName("Should reject stripes for single clients and more stripes than max calls")
+    public void shouldRejectInvalidStripes() {
+        Assertions.assertThrows(ApiLimiterException.class, () -> new ApiConfig(API_NAME, 10, 1000, "stripesclient").withStripes(2));
+        Assertions.assertThrows(ApiLimiterException.class, () -> new ApiConfig(API_NAME, 10, 1000).perClient().withStripes(2));
+        Assertions.assertThrows(ApiLimiterException.class, () -> new ApiConfig(API_NAME, 10, 1000).withStripes(2).perClient());
+        Assertions.assertThrows(ApiLimiterException.class, () -> new ApiConfig(API_NAME, 10, 1000).withStripes(11));
+    }
+}
@@ -0,0 +1,89 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.ConsumeRequest;
+import com.dinuberinde.api.limiter.ConsumeResult;
+import com.dinuberinde.api.limiter.ConsumeStatus;
+import com.dinuberinde.api.limiter.UnknownPolicy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class ApiLimiterUnknownPolicyTest {
+    private final static String API_NAME = "/api/unknown-policy-test";
+    private final static String FALLBACK_API = "/api/unknown-policy-fallback";
+    private final static String CLIENT = "unknownpolicyclient";
+
+
+    @Test
+    @DisplayName("MaxCalls = 2, Timeframe = 10sec -> Should report unknown APIs and clients with a status")
+    public void shouldReportStatus() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig(API_NAME, 2, 10 * 1000, CLIENT), new ApiConfig("/api/unknown-policy-root/*", 2, 10 * 1000, CLIENT));
+
+        Assertions.assertEquals(ConsumeStatus.ALLOWED, registry.tryConsume(API_NAME, CLIENT, 2));
+        Assertions.assertEquals(ConsumeStatus.REJECTED, registry.tryConsume(API_NAME, CLIENT));
+
+        ConsumeResult result = new ConsumeResult();
+        Assertions.assertEquals(ConsumeStatus.ALLOWED, registry.tryConsume("/api/unknown-policy-root/orders", CLIENT, 2, result));
+        Assertions.assertEquals(0, result.getRemaining());
+        Assertions.assertEquals(ConsumeStatus.REJECTED, registry.tryConsume("/api/unknown-policy-root/orders", CLIENT, 1, result));
+        Assertions.assertFalse(result.isConsumed());
+
+        Assertions.assertEquals(ConsumeStatus.UNKNOWN_API, registry.tryConsume("/api/unknown-policy-other", CLIENT));
+        Assertions.assertEquals(ConsumeStatus.UNKNOWN_API, registry.tryConsume(null, CLIENT));
+        Assertions.assertEquals(ConsumeStatus.UNKNOWN_CLIENT, registry.tryConsume(API_NAME, "other-client"));
+        Assertions.assertEquals(ConsumeStatus.UNKNOWN_CLIENT, registry.tryConsume(API_NAME, null));
+        Assertions.assertEquals(ConsumeStatus.UNKNOWN_CLIENT, registry.tryConsume("/api/unknown-policy-root/orders", "other-client"));
+        Assertions.assertThrows(ApiLimiterException.class, () -> registry.tryConsume(API_NAME, CLIENT, 0));
+
+        Assertions.assertEquals(1, registry.getMetrics().getUnknownApis());
+        Assertions.assertEquals(2, registry.getMetrics().getApis().get(API_NAME).getUnknownClients());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 2, Timeframe = 10sec -> Should allow or deny unknown APIs and clients according to the policy")
+    public void shouldApplyPolicy() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().unknownPolicy(UnknownPolicy.ALLOW).build();
+        registry.registerApis(new ApiConfig(API_NAME, 2, 10 * 1000, CLIENT));
+        ConsumeResult result = new ConsumeResult();
+
+        Assertions.assertTrue(registry.consume("/api/unknown-policy-other", CLIENT, 100, result));
+        Assertions.assertTrue(result.isConsumed());
+        Assertions.assertEquals(Long.MAX_VALUE, result.getRemaining());
+        Assertions.assertTrue(registry.consume(API_NAME, "other-client"));
+
+        registry.setUnknownPolicy(UnknownPolicy.DENY);
+        Assertions.assertFalse(registry.consume(API_NAME, "other-client", 1, result));
+        Assertions.assertFalse(result.isConsumed());
+        Assertions.assertEquals(ConsumeResult.NEVER, result.getRetryAfter());
+        Assertions.assertArrayEquals(new boolean[] { true, false, true }, registry.consumeAll(Arrays.asList(
+                new ConsumeRequest(API_NAME, CLIENT, 1),
+                new ConsumeRequest(null, CLIENT, 1),
+                new ConsumeRequest(API_NAME, CLIENT, 1)
+        )));
+
+        registry.setUnknownPolicy(UnknownPolicy.THROW);
+        ApiLimiterException exception = Assertions.assertThrows(ApiLimiterException.class, () -> registry.consume(API_NAME, "other-client"));
+        Assertions.assertEquals("Client other-client non found for API " + API_NAME, exception.getMessage());
+        Assertions.assertThrows(ApiLimiterException.class, () -> registry.setUnknownPolicy(null));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 3, Timeframe = 10sec -> Should consume unknown APIs and clients from the fallback API")
+    public void shouldConsumeFallbackApi() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().fallbackApi(FALLBACK_API).build();
+        registry.registerApis(new ApiConfig(API_NAME, 2, 10 * 1000, CLIENT), new ApiConfig(FALLBACK_API, 3, 10 * 1000));
+
+        Assertions.assertTrue(registry.consume("/api/unknown-policy-other", CLIENT, 2));
+        Assertions.assertEquals(ConsumeStatus.ALLOWED, registry.tryConsume(API_NAME, "other-client"));
+        Assertions.assertFalse(registry.handle("/api/unknown-policy-other").consume());
+        Assertions.assertEquals(ConsumeStatus.REJECTED, registry.tryConsume(null, CLIENT));
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT, 2));
+
+        registry.setFallbackApi(null);
+        Assertions.assertEquals(ConsumeStatus.UNKNOWN_API, registry.tryConsume("/api/unknown-policy-other", CLIENT));
+    }
+}
@@ -0,0 +1,53 @@
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.CachedClock;
+import com.dinuberinde.api.limiter.Clock;
+import com.dinuberinde.api.limiter.VirtualClock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ClockTest {
+
+    @Test
+    @DisplayName("Should never go back in time with the monotonic clock")
+    public void shouldBeMonotonic() {
+        Clock clock = Clock.monotonic();
+
+        long previous = clock.millis();
+        for (int i = 0; i < 10_000; i++) {
+            long now = clock.millis();
+            Assertions.assertTrue(now >= previous);
+            previous = now;
+        }
+    }
+
+    @Test
+    @DisplayName("Should advance the cached clock in the background")
+    public void shouldAdvanceCachedClock() throws InterruptedException {
+        try (CachedClock clock = new CachedClock()) {
+            long start = clock.millis();
+            Thread.sleep(50);
+
+            Assertions.assertTrue(clock.millis() > start);
+        }
+    }
+
+    @Test
+    @DisplayName("Should advance the virtual clock only explicitly")
+    public void shouldAdvanceVirtualClockExplicitly() {
+        VirtualClock clock = new VirtualClock(100);
+
+        Assertions.assertEquals(100, clock.millis());
+        Assertions.assertEquals(1100, clock.advance(1000));
+        Assertions.assertEquals(1100, clock.millis());
+
+        try {
+            clock.advance(-1);
+        } catch (ApiLimiterException e) {
+            Assertions.assertEquals("A clock cannot go back in time", e.getMessage());
+            return;
+        }
+
+        Assertions.fail();
+    }
+}
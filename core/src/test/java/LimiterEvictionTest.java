@@ -0,0 +1,46 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.internal.Limiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class LimiterEvictionTest {
+    private final static String CLIENT = "client-";
+
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 100ms -> Should reclaim the clients whose timeframe expired")
+    public void shouldReclaimExpiredClients() throws InterruptedException {
+        Limiter limiter = new Limiter(new ApiConfig("test", 5, 100, ApiConfig.ALL_CLIENTS));
+
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertTrue(limiter.consume(CLIENT + i));
+        }
+
+        Assertions.assertEquals(1000, limiter.getNumberOfClients());
+        Thread.sleep(200); // let the timeframe of the clients expire
+
+        for (int i = 1000; i < 2000; i++) {
+            Assertions.assertTrue(limiter.consume(CLIENT + i));
+        }
+
+        Assertions.assertTrue(limiter.getNumberOfClients() < 1500);
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 100ms, MaxClients = 10 -> Should reject new clients until a client expires")
+    public void shouldRejectNewClientsWhenFull() throws InterruptedException {
+        Limiter limiter = new Limiter(new ApiConfig("test", 5, 100, ApiConfig.ALL_CLIENTS).withMaxClients(10));
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(limiter.consume(CLIENT + i));
+        }
+
+        Assertions.assertFalse(limiter.consume(CLIENT + 10)); // should not track the 11th client
+        Assertions.assertTrue(limiter.consume(CLIENT + 0)); // should consume for tracked clients
+        Thread.sleep(200); // let the timeframe of the clients expire
+
+        Assertions.assertTrue(limiter.consume(CLIENT + 10));
+        Assertions.assertTrue(limiter.getNumberOfClients() <= 10);
+    }
+}
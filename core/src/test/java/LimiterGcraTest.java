@@ -0,0 +1,82 @@
+import com.dinuberinde.api.limiter.Algorithm;
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiter;
+import com.dinuberinde.api.limiter.internal.Limiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LimiterGcraTest {
+    private final static String API_NAME = "/api/gcra-test";
+    private final static String CLIENT = "mxnzbcvlaksj";
+
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec, Burst = default -> Should allow 5 calls at once")
+    public void shouldAllow5CallsAtOnce() {
+        Limiter limiter = new Limiter(new ApiConfig("test", CLIENT).withAlgorithm(Algorithm.GCRA));
+
+        List<Boolean> consumers = new ArrayList<>(5);
+        for (int i = 1; i <= 5; i++) {
+            consumers.add(limiter.consume(CLIENT));
+        }
+
+        Assertions.assertTrue(consumers.stream().allMatch(p -> p));
+        Assertions.assertFalse(limiter.consume(CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 10, Timeframe = 1sec, Burst = 3 -> Should allow 3 calls at once and 1 call every 100ms")
+    public void shouldAllowBurstAndThenSpacedCalls() throws InterruptedException {
+        Limiter limiter = new Limiter(new ApiConfig("test", 10, 1000, CLIENT).withAlgorithm(Algorithm.GCRA).withBurst(3));
+
+        Assertions.assertTrue(limiter.consume(CLIENT));
+        Assertions.assertTrue(limiter.consume(CLIENT));
+        Assertions.assertTrue(limiter.consume(CLIENT));
+        Assertions.assertFalse(limiter.consume(CLIENT)); // should not consume beyond the burst
+
+        Thread.sleep(110); // let one emission interval elapse
+        Assertions.assertTrue(limiter.consume(CLIENT));
+        Assertions.assertFalse(limiter.consume(CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 4, Timeframe = 10sec, Burst = 2 -> Should limit calls of an API registered with GCRA")
+    public void shouldLimitRegisteredApi() {
+        ApiLimiter.registerApis(new ApiConfig(API_NAME, 4, 10 * 1000).withAlgorithm(Algorithm.GCRA).withBurst(2));
+
+        Assertions.assertTrue(ApiLimiter.consume(API_NAME));
+        Assertions.assertTrue(ApiLimiter.consume(API_NAME, CLIENT));
+        Assertions.assertFalse(ApiLimiter.consume(API_NAME)); // should not consume beyond the burst
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1, Timeframe = 1day -> Should reject huge numbers of calls instead of overflowing")
+    public void shouldRejectHugePermits() {
+        Limiter limiter = new Limiter(new ApiConfig("test", 1, 24 * 60 * 60 * 1000L, CLIENT).withAlgorithm(Algorithm.GCRA));
+
+        Assertions.assertFalse(limiter.consume(CLIENT, 2));
+        Assertions.assertFalse(limiter.consume(CLIENT, 106752));
+        Assertions.assertTrue(limiter.consume(CLIENT));
+
+        // the cost of these calls added to the theoretical arrival time would overflow
+        Assertions.assertFalse(limiter.consume(CLIENT, 106751));
+        Assertions.assertFalse(limiter.consume(CLIENT, 1 << 30));
+        Assertions.assertFalse(limiter.consume(CLIENT, Integer.MAX_VALUE));
+        Assertions.assertFalse(limiter.consume(CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1, Timeframe = 100years, Burst = max -> Should saturate the tolerance instead of overflowing")
+    public void shouldSaturateTolerance() {
+        Limiter limiter = new Limiter(new ApiConfig("test", 1, 100L * 365 * 24 * 60 * 60 * 1000, CLIENT)
+                .withAlgorithm(Algorithm.GCRA).withBurst(Integer.MAX_VALUE));
+
+        Assertions.assertTrue(limiter.consume(CLIENT));
+        Assertions.assertFalse(limiter.consume(CLIENT, Integer.MAX_VALUE));
+        Assertions.assertFalse(limiter.consume(CLIENT));
+    }
+}
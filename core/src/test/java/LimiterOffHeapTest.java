@@ -0,0 +1,122 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.VirtualClock;
+import com.dinuberinde.api.limiter.internal.Limiter;
+import com.dinuberinde.api.limiter.internal.SlotTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LimiterOffHeapTest {
+    private final static String API_NAME = "/api/off-heap-test";
+    private final static String CLIENT = "offheapclient";
+
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should limit each client in an off heap table")
+    public void shouldLimitClients() {
+        VirtualClock clock = new VirtualClock();
+        ApiConfig apiConfig = new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT);
+        Limiter limiter = new Limiter(apiConfig, clock, null, 0, SlotTable.direct(1 << 16, clock));
+
+        for (int client = 0; client < 10_000; client++) {
+            for (int i = 1; i <= 5; i++) {
+                Assertions.assertTrue(limiter.consume("10.0." + client / 256 + "." + client % 256));
+            }
+        }
+
+        Assertions.assertFalse(limiter.consume("10.0.0.0"));
+        Assertions.assertEquals(10_000, limiter.getNumberOfClients());
+
+        clock.advance(10 * 1000);
+        Assertions.assertTrue(limiter.consume("10.0.0.0"));
+        Assertions.assertEquals(1, limiter.getNumberOfClients());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1000, Timeframe = 10sec -> Should allow exactly 1000 parallel calls")
+    public void shouldAllowExactly1000ParallelCalls() throws InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        Limiter limiter = new Limiter(new ApiConfig(API_NAME, 1000, 10 * 1000, CLIENT), clock, null, 0, SlotTable.direct(16, clock));
+        AtomicInteger consumed = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 4000; i++) {
+            executor.submit(() -> {
+                if (limiter.consume(CLIENT)) {
+                    consumed.incrementAndGet();
+                }
+            });
+        }
+
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(1000, consumed.get());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1000, Timeframe = 1sec -> Should hand a single slot over to a single client per timeframe")
+    public void shouldHandOverSlotToSingleClient() throws Exception {
+        VirtualClock clock = new VirtualClock();
+        Limiter limiter = new Limiter(new ApiConfig(API_NAME, 1000, 1000, CLIENT), clock, null, 0, SlotTable.direct(1, clock));
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int timeframe = 0; timeframe < 200; timeframe++) {
+            CyclicBarrier start = new CyclicBarrier(threads);
+            AtomicInteger clients = new AtomicInteger();
+            List<Future<?>> workers = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                String client = CLIENT + thread;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    boolean consumed = false;
+                    for (int i = 0; i < 20; i++) {
+                        consumed |= limiter.consume(client);
+                    }
+
+                    if (consumed) {
+                        clients.incrementAndGet();
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> worker : workers) {
+                worker.get(10, TimeUnit.SECONDS);
+            }
+
+            // the calls of every other client were rejected, since the slot was not idle anymore
+            Assertions.assertEquals(1, clients.get());
+            clock.advance(1000);
+        }
+
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should report the fixed footprint of the off heap tables")
+    public void shouldReportFootprint() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().offHeap(1000).build();
+        registry.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000, CLIENT));
+        long footprint = registry.getMetrics().getOffHeapBytes();
+
+        Assertions.assertTrue(footprint >= 1024 * 16 && footprint < 1024 * 16 + 128);
+        for (int i = 0; i < 5; i++) {
+            registry.consume(API_NAME, CLIENT);
+        }
+
+        Assertions.assertEquals(footprint, registry.getMetrics().getApis().get(API_NAME).getOffHeapBytes());
+        Assertions.assertEquals(0, ApiLimiterRegistry.builder().build().getMetrics().getOffHeapBytes());
+    }
+}
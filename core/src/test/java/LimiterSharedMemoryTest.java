@@ -0,0 +1,132 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.Clock;
+import com.dinuberinde.api.limiter.VirtualClock;
+import com.dinuberinde.api.limiter.internal.Limiter;
+import com.dinuberinde.api.limiter.internal.SlotTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LimiterSharedMemoryTest {
+    private final static String API_NAME = "/api/shared-memory-test";
+    private final static String CLIENT = "sharedclient";
+
+    @TempDir
+    Path directory;
+
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should share the max calls among the registries mapping the same file")
+    public void shouldShareMaxCalls() {
+        ApiLimiterRegistry first = ApiLimiterRegistry.builder().sharedMemory(directory, 1024).build();
+        ApiLimiterRegistry second = ApiLimiterRegistry.builder().sharedMemory(directory, 1024).build();
+        first.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000));
+        second.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000));
+
+        for (int i = 1; i <= 5; i++) {
+            Assertions.assertTrue((i % 2 == 0 ? first : second).consume(API_NAME, CLIENT));
+        }
+
+        Assertions.assertFalse(first.consume(API_NAME, CLIENT));
+        Assertions.assertFalse(second.consume(API_NAME, CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1000, Timeframe = 10sec -> Should allow exactly 1000 parallel calls through two mappings")
+    public void shouldAllowExactly1000ParallelCalls() throws InterruptedException {
+        ApiConfig apiConfig = new ApiConfig(API_NAME, 1000, 10 * 1000, CLIENT);
+        Limiter first = new Limiter(apiConfig, Clock.system(), null, 0, SlotTable.mapped(directory, apiConfig, 16, Clock.system()));
+        Limiter second = new Limiter(apiConfig, Clock.system(), null, 0, SlotTable.mapped(directory, apiConfig, 16, Clock.system()));
+        AtomicInteger consumed = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 4000; i++) {
+            Limiter limiter = i % 2 == 0 ? first : second;
+            executor.submit(() -> {
+                if (limiter.consume(CLIENT)) {
+                    consumed.incrementAndGet();
+                }
+            });
+        }
+
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(1000, consumed.get());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1, Timeframe = 1sec -> Should reuse the slots of idle clients when the table is full")
+    public void shouldReuseIdleSlots() {
+        VirtualClock clock = new VirtualClock();
+        ApiConfig apiConfig = new ApiConfig(API_NAME, 1, 1000);
+        Limiter limiter = new Limiter(apiConfig, clock, null, 0, SlotTable.mapped(directory, apiConfig, 4, clock));
+
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(limiter.consume("client" + i));
+        }
+
+        Assertions.assertEquals(4, limiter.getNumberOfClients());
+        Assertions.assertFalse(limiter.consume("client4"));
+
+        clock.advance(1000);
+        Assertions.assertTrue(limiter.consume("client4"));
+        Assertions.assertTrue(limiter.consume("client0"));
+        Assertions.assertEquals(2, limiter.getNumberOfClients());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5 or 6, Timeframe = 10sec -> Should not share the file of another configuration")
+    public void shouldSeparateConfigurations() {
+        ApiLimiterRegistry first = ApiLimiterRegistry.builder().sharedMemory(directory, 16).build();
+        ApiLimiterRegistry second = ApiLimiterRegistry.builder().sharedMemory(directory, 16).build();
+        first.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000));
+        second.registerApis(new ApiConfig(API_NAME, 6, 10 * 1000));
+
+        Assertions.assertTrue(first.consume(API_NAME, CLIENT, 5));
+        Assertions.assertTrue(second.consume(API_NAME, CLIENT, 6));
+        Assertions.assertFalse(first.consume(API_NAME, CLIENT));
+        Assertions.assertFalse(second.consume(API_NAME, CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5 then 6, Timeframe = 10sec -> Should carry the calls over to the file of the new configuration")
+    public void shouldReconfigure() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().sharedMemory(directory, 16).build();
+        registry.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000));
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT, 3));
+
+        registry.reconfigure(new ApiConfig(API_NAME, 6, 10 * 1000));
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT, 3));
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT));
+
+        ApiLimiterRegistry restarted = ApiLimiterRegistry.builder().sharedMemory(directory, 16).build();
+        restarted.registerApis(new ApiConfig(API_NAME, 6, 10 * 1000));
+        Assertions.assertFalse(restarted.consume(API_NAME, CLIENT));
+    }
+
+    @Test
+    @DisplayName("Should launch an ApiLimiterException when mapping a file with another number of slots")
+    public void shouldRejectAnotherNumberOfSlots() {
+        ApiLimiterRegistry first = ApiLimiterRegistry.builder().sharedMemory(directory, 16).build();
+        ApiLimiterRegistry second = ApiLimiterRegistry.builder().sharedMemory(directory, 32).build();
+        first.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000));
+
+        try {
+            second.registerApis(new ApiConfig(API_NAME, 5, 10 * 1000));
+        } catch (ApiLimiterException e) {
+            Assertions.assertTrue(e.getMessage().endsWith("of API " + API_NAME + " has a different number of slots"));
+            return;
+        }
+
+        Assertions.fail();
+    }
+}
@@ -0,0 +1,86 @@
+import com.dinuberinde.api.limiter.Algorithm;
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.VirtualClock;
+import com.dinuberinde.api.limiter.internal.Limiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LimiterSlidingWindowTest {
+    private final static String CLIENT = "poiuytrewqas";
+
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should allow 5 calls and fail the 6th")
+    public void shouldFailOn6Calls() {
+        Limiter limiter = new Limiter(new ApiConfig("test", CLIENT).withAlgorithm(Algorithm.SLIDING_WINDOW));
+
+        List<Boolean> consumers = new ArrayList<>(5);
+        for (int i = 1; i <= 5; i++) {
+            consumers.add(limiter.consume(CLIENT));
+        }
+
+        Assertions.assertTrue(consumers.stream().allMatch(p -> p));
+        Assertions.assertFalse(limiter.consume(CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 200ms -> Should allow 5 calls again after two timeframes")
+    public void shouldAllow5CallsAfterTwoTimeframes() throws InterruptedException {
+        Limiter limiter = new Limiter(new ApiConfig("test", 5, 200, CLIENT).withAlgorithm(Algorithm.SLIDING_WINDOW));
+
+        for (int i = 1; i <= 5; i++) {
+            Assertions.assertTrue(limiter.consume(CLIENT));
+        }
+
+        Thread.sleep(400); // let the current and the previous window expire
+        for (int i = 1; i <= 5; i++) {
+            Assertions.assertTrue(limiter.consume(CLIENT));
+        }
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 10, Timeframe = 1sec -> Should limit a burst right after a burst at the end of the previous window")
+    public void shouldLimitBurstAcrossWindows() {
+        VirtualClock clock = new VirtualClock();
+        Limiter limiter = new Limiter(new ApiConfig("test", 10, 1000, CLIENT).withAlgorithm(Algorithm.SLIDING_WINDOW), clock);
+
+        clock.advance(1000 - 1);
+        Assertions.assertTrue(limiter.consume(CLIENT, 10));
+
+        // 2ms later the previous window still weighs 10 * 999 / 1000 calls, leaving room for a single call
+        clock.advance(2);
+        Assertions.assertFalse(limiter.consume(CLIENT, 10));
+        Assertions.assertFalse(limiter.consume(CLIENT, 2));
+        Assertions.assertTrue(limiter.consume(CLIENT));
+        Assertions.assertFalse(limiter.consume(CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 10, Timeframe = 1ms -> Should allow the calls again after 2^23 timeframes")
+    public void shouldExpireStateAfterManyTimeframes() {
+        VirtualClock clock = new VirtualClock();
+        Limiter limiter = new Limiter(new ApiConfig("test", 10, 1, CLIENT).withAlgorithm(Algorithm.SLIDING_WINDOW), clock);
+
+        Assertions.assertTrue(limiter.consume(CLIENT, 10));
+        Assertions.assertFalse(limiter.consume(CLIENT));
+
+        // the index of the window of the state must not wrap around to the current window
+        clock.advance(1L << 23);
+        Assertions.assertTrue(limiter.consume(CLIENT, 10));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1000000, Timeframe = 1sec -> Should reject a timeframe too short for the window index")
+    public void shouldRejectShortTimeframe() {
+        ApiLimiterException exception = Assertions.assertThrows(ApiLimiterException.class,
+                () -> new Limiter(new ApiConfig("test", 1_000_000, 1000, CLIENT).withAlgorithm(Algorithm.SLIDING_WINDOW)));
+        Assertions.assertEquals("Timeframe of API test must be at least 37615 ms with 1000000 max calls and the sliding window", exception.getMessage());
+
+        new Limiter(new ApiConfig("test", 1_000_000, 60 * 1000, CLIENT).withAlgorithm(Algorithm.SLIDING_WINDOW));
+    }
+}
@@ -6,6 +6,10 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class LimiterTest {
     private final static String CLIENT = "alportughjl";
@@ -101,4 +105,34 @@ public class LimiterTest {
         Assertions.assertFalse(limiter.consume(CLIENT));
         Assertions.assertFalse(limiter.consume(CLIENT));
     }
+
+    @Test
+    @DisplayName("MaxCalls = 1000, Timeframe = 10sec -> Should allow exactly 1000 calls out of 3200 parallel calls")
+    public void shouldAllowExactly1000ParallelCalls() throws Exception {
+        Limiter limiter = new Limiter(new ApiConfig("test", 1000, 10 * 1000, CLIENT));
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        List<Future<Integer>> futures = new ArrayList<>(32);
+        for (int i = 0; i < 32; i++) {
+            futures.add(executor.submit(() -> {
+                int consumed = 0;
+                for (int j = 0; j < 100; j++) {
+                    if (limiter.consume(CLIENT)) {
+                        consumed++;
+                    }
+                }
+                return consumed;
+            }));
+        }
+
+        int consumed = 0;
+        for (Future<Integer> future : futures) {
+            consumed += future.get();
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(1000, consumed);
+    }
 }
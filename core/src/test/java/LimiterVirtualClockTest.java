@@ -0,0 +1,94 @@
+import com.dinuberinde.api.limiter.Algorithm;
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiter;
+import com.dinuberinde.api.limiter.Clock;
+import com.dinuberinde.api.limiter.VirtualClock;
+import com.dinuberinde.api.limiter.internal.Limiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class LimiterVirtualClockTest {
+    private final static String API_NAME = "/api/virtual-clock-test";
+    private final static String CLIENT = "lkjhgfdsapoi";
+
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should allow 10 calls: 5 calls + timeframe reset + 5 calls")
+    public void shouldAllow10CallsWithTimeframeReset() {
+        VirtualClock clock = new VirtualClock();
+        Limiter limiter = new Limiter(new ApiConfig("test", CLIENT), clock);
+
+        for (int i = 1; i <= 5; i++) {
+            Assertions.assertTrue(limiter.consume(CLIENT));
+        }
+        Assertions.assertFalse(limiter.consume(CLIENT));
+
+        clock.advance(9999);
+        Assertions.assertFalse(limiter.consume(CLIENT)); // the timeframe is not expired yet
+
+        clock.advance(1); // let the timeframe reset
+        for (int i = 1; i <= 5; i++) {
+            Assertions.assertTrue(limiter.consume(CLIENT));
+        }
+        Assertions.assertFalse(limiter.consume(CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 10, Timeframe = 1sec -> Should weight the calls of the previous window with the sliding window")
+    public void shouldWeightPreviousWindowCalls() {
+        VirtualClock clock = new VirtualClock();
+        Limiter limiter = new Limiter(new ApiConfig("test", 10, 1000, CLIENT).withAlgorithm(Algorithm.SLIDING_WINDOW), clock);
+
+        clock.advance(900);
+        for (int i = 1; i <= 10; i++) {
+            Assertions.assertTrue(limiter.consume(CLIENT));
+        }
+
+        clock.advance(200); // 10% of the next window elapsed: 9 calls of the previous window still count
+        Assertions.assertTrue(limiter.consume(CLIENT));
+        Assertions.assertFalse(limiter.consume(CLIENT));
+
+        clock.advance(500); // 60% of the next window elapsed: 4 calls of the previous window still count
+        for (int i = 1; i <= 5; i++) {
+            Assertions.assertTrue(limiter.consume(CLIENT));
+        }
+        Assertions.assertFalse(limiter.consume(CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 10, Timeframe = 1sec, Burst = 1 -> Should allow 1 call every 100ms with GCRA")
+    public void shouldSpaceCallsWithGcra() {
+        VirtualClock clock = new VirtualClock();
+        Limiter limiter = new Limiter(new ApiConfig("test", 10, 1000, CLIENT).withAlgorithm(Algorithm.GCRA).withBurst(1), clock);
+
+        Assertions.assertTrue(limiter.consume(CLIENT));
+        Assertions.assertFalse(limiter.consume(CLIENT));
+
+        clock.advance(99);
+        Assertions.assertFalse(limiter.consume(CLIENT));
+
+        clock.advance(1);
+        Assertions.assertTrue(limiter.consume(CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should use the clock set on the ApiLimiter for the APIs registered afterwards")
+    public void shouldUseClockOfApiLimiter() {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiter.setClock(clock);
+        try {
+            ApiLimiter.registerApis(new ApiConfig(API_NAME, CLIENT));
+        } finally {
+            ApiLimiter.setClock(Clock.monotonic());
+        }
+
+        for (int i = 1; i <= 5; i++) {
+            Assertions.assertTrue(ApiLimiter.consume(API_NAME, CLIENT));
+        }
+        Assertions.assertFalse(ApiLimiter.consume(API_NAME, CLIENT));
+
+        clock.advance(10 * 1000); // let the timeframe reset
+        Assertions.assertTrue(ApiLimiter.consume(API_NAME, CLIENT));
+    }
+}
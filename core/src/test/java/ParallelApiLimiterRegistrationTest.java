@@ -0,0 +1,57 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ParallelApiLimiterRegistrationTest {
+    private final static String API_NAME = "/api/parallel-registration-test";
+    private final static String CLIENT = "qwmnbvcxzlkj";
+
+
+    @Test
+    @DisplayName("MaxCalls = 500, Timeframe = 10sec -> Should allow exactly 500 calls while other APIs are registered")
+    public void shouldAllowExactly500CallsWhileRegistering() throws Exception {
+        int NUMBER_OF_THREADS = 10;
+        ApiLimiter.registerApis(new ApiConfig(API_NAME, 500, 10 * 1000, CLIENT));
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS + 1);
+        Future<?> registration = executor.submit(() -> {
+            for (int i = 0; i < 200; i++) {
+                ApiLimiter.registerApis(new ApiConfig(API_NAME + "/" + i + "/*", 5, 10 * 1000, CLIENT));
+            }
+        });
+
+        List<Future<Integer>> consumers = new ArrayList<>(NUMBER_OF_THREADS);
+        for (int i = 0; i < NUMBER_OF_THREADS; i++) {
+            consumers.add(executor.submit(() -> {
+                int consumed = 0;
+                for (int j = 0; j < 100; j++) {
+                    if (ApiLimiter.consume(API_NAME, CLIENT)) {
+                        consumed++;
+                    }
+                }
+                return consumed;
+            }));
+        }
+
+        registration.get();
+        int consumed = 0;
+        for (Future<Integer> consumer : consumers) {
+            consumed += consumer.get();
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(500, consumed);
+        Assertions.assertTrue(ApiLimiter.isApiConfigured(API_NAME + "/199/*"));
+    }
+}
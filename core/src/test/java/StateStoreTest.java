@@ -0,0 +1,192 @@
+import com.dinuberinde.api.limiter.Algorithm;
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.ConsumeRequest;
+import com.dinuberinde.api.limiter.InMemoryStateStore;
+import com.dinuberinde.api.limiter.IncrementRequest;
+import com.dinuberinde.api.limiter.IncrementResult;
+import com.dinuberinde.api.limiter.LoopbackStateStore;
+import com.dinuberinde.api.limiter.VirtualClock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class StateStoreTest {
+    private final static String API_NAME = "/api/store-test";
+    private final static String CLIENT = "storeclient";
+
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should count the calls once within the window of the store")
+    public void shouldIncrementInWindow() {
+        VirtualClock clock = new VirtualClock();
+        InMemoryStateStore store = new InMemoryStateStore(clock);
+        IncrementRequest request = new IncrementRequest("key", 2, 5, 10 * 1000);
+
+        Assertions.assertTrue(store.increment(request).join().isConsumed());
+        Assertions.assertTrue(store.increment(request).join().isConsumed());
+
+        IncrementResult result = store.increment(request).join();
+        Assertions.assertFalse(result.isConsumed());
+        Assertions.assertEquals(4, result.getCalls());
+        Assertions.assertEquals(10 * 1000, result.getResetTime());
+
+        clock.advance(10 * 1000);
+        Assertions.assertTrue(store.increment(request).join().isConsumed());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should never add more calls than the max calls of the store")
+    public void shouldNeverIncrementBeyondMaxCalls() {
+        InMemoryStateStore store = new InMemoryStateStore(new VirtualClock());
+
+        IncrementResult result = store.increment(new IncrementRequest("key", 6, 5, 10 * 1000)).join();
+        Assertions.assertFalse(result.isConsumed());
+        Assertions.assertEquals(0, result.getCalls());
+        Assertions.assertEquals(IncrementResult.NEVER, result.getResetTime());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 1sec -> Should remove the expired windows of the store incrementally")
+    public void shouldRemoveExpiredWindows() {
+        VirtualClock clock = new VirtualClock();
+        InMemoryStateStore store = new InMemoryStateStore(clock);
+        for (int i = 0; i < 3; i++) {
+            store.increment(new IncrementRequest("key" + i, 1, 5, 1000)).join();
+        }
+
+        clock.advance(1000);
+        for (int i = 0; i < 4; i++) {
+            store.increment(new IncrementRequest("key", 1, 5, 1000)).join();
+        }
+
+        Assertions.assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should share the max calls among the registries of a store")
+    public void shouldShareMaxCalls() {
+        InMemoryStateStore store = new InMemoryStateStore();
+        ApiLimiterRegistry first = ApiLimiterRegistry.builder().stateStore(store).build();
+        ApiLimiterRegistry second = ApiLimiterRegistry.builder().stateStore(store).build();
+        first.registerApis(new ApiConfig(API_NAME, CLIENT));
+        second.registerApis(new ApiConfig(API_NAME, CLIENT));
+
+        for (int i = 1; i <= 5; i++) {
+            Assertions.assertTrue((i % 2 == 0 ? first : second).consume(API_NAME, CLIENT));
+        }
+
+        Assertions.assertFalse(first.consume(API_NAME, CLIENT));
+        Assertions.assertFalse(second.consume(API_NAME, CLIENT));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should decide with the cached quota when the store is slow")
+    public void shouldUseCachedQuota() throws InterruptedException {
+        LoopbackStateStore store = new LoopbackStateStore(new InMemoryStateStore(), 0);
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().stateStore(store).storeTimeout(20).build();
+        registry.registerApis(new ApiConfig(API_NAME, CLIENT));
+
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT, 3));
+
+        store.setLatency(500);
+        long start = System.nanoTime();
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT));
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT));
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT));
+        Assertions.assertTrue(System.nanoTime() - start < 500_000_000L);
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 2, Timeframe = 1sec -> Should release the local calls rejected by the store")
+    public void shouldReleaseCallsRejectedByStore() {
+        VirtualClock clock = new VirtualClock();
+        InMemoryStateStore store = new InMemoryStateStore(clock);
+        ApiLimiterRegistry first = ApiLimiterRegistry.builder().clock(clock).stateStore(store).build();
+        ApiLimiterRegistry second = ApiLimiterRegistry.builder().clock(clock).stateStore(store).build();
+        first.registerApis(new ApiConfig(API_NAME, 2, 1000, CLIENT));
+        second.registerApis(new ApiConfig(API_NAME, 2, 1000, CLIENT));
+
+        Assertions.assertTrue(first.consume(API_NAME, CLIENT, 2));
+
+        clock.advance(500);
+        Assertions.assertFalse(second.consume(API_NAME, CLIENT));
+        Assertions.assertFalse(second.consume(API_NAME, CLIENT));
+
+        clock.advance(500); // the window of the store resets, while the local window of the second registry lasts
+        Assertions.assertTrue(second.consume(API_NAME, CLIENT, 2));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should stop waiting for the store once it missed the timeout")
+    public void shouldStopWaitingForSlowStore() {
+        LoopbackStateStore store = new LoopbackStateStore(new InMemoryStateStore(), 0);
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().stateStore(store).storeTimeout(200).build();
+        registry.registerApis(new ApiConfig(API_NAME, CLIENT));
+
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT));
+
+        store.setLatency(2000);
+        long start = System.nanoTime();
+        for (int i = 1; i <= 4; i++) {
+            Assertions.assertTrue(registry.consume(API_NAME, CLIENT));
+        }
+
+        Assertions.assertFalse(registry.consume(API_NAME, CLIENT));
+        Assertions.assertTrue(System.nanoTime() - start < 400_000_000L);
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1, Timeframe = 200ms -> Should acquire asynchronously without waiting for the timeout of the store")
+    public void shouldAcquireAsyncWithSlowStore() throws Exception {
+        LoopbackStateStore store = new LoopbackStateStore(new InMemoryStateStore(), 20);
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().stateStore(store).storeTimeout(1000).build();
+        registry.registerApis(new ApiConfig(API_NAME, 1, 200, CLIENT));
+
+        Assertions.assertTrue(registry.consume(API_NAME, CLIENT));
+
+        long start = System.nanoTime();
+        Assertions.assertTrue(registry.acquireAsync(API_NAME, CLIENT, 1, 2, TimeUnit.SECONDS).get(3, TimeUnit.SECONDS));
+        Assertions.assertTrue(System.nanoTime() - start < 800_000_000L);
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 5, Timeframe = 10sec -> Should consume requests in bulk with a batch of the store")
+    public void shouldConsumeAllWithStore() {
+        InMemoryStateStore store = new InMemoryStateStore();
+        ApiLimiterRegistry first = ApiLimiterRegistry.builder().stateStore(store).build();
+        ApiLimiterRegistry second = ApiLimiterRegistry.builder().stateStore(store).build();
+        first.registerApis(new ApiConfig(API_NAME, CLIENT));
+        second.registerApis(new ApiConfig(API_NAME, CLIENT));
+
+        Assertions.assertTrue(second.consume(API_NAME, CLIENT, 2));
+
+        boolean[] consumed = first.consumeAll(Arrays.asList(
+                new ConsumeRequest(API_NAME, CLIENT, 2),
+                new ConsumeRequest(API_NAME, CLIENT, 2),
+                new ConsumeRequest(API_NAME, CLIENT, 1)
+        ));
+
+        Assertions.assertArrayEquals(new boolean[] { true, false, true }, consumed);
+    }
+
+    @Test
+    @DisplayName("Should launch an ApiLimiterException when registering a GCRA API with a state store")
+    public void shouldRejectUnsupportedAlgorithm() {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().stateStore(new InMemoryStateStore()).build();
+
+        try {
+            registry.registerApis(new ApiConfig(API_NAME, CLIENT).withAlgorithm(Algorithm.GCRA));
+        } catch (ApiLimiterException e) {
+            Assertions.assertEquals("Algorithm GCRA of API /api/store-test is not supported by state stores", e.getMessage());
+            Assertions.assertFalse(registry.isApiConfigured(API_NAME));
+            return;
+        }
+
+        Assertions.fail();
+    }
+}
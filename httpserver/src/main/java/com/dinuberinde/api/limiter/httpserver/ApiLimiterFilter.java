@@ -0,0 +1,177 @@
+package com.dinuberinde.api.limiter.httpserver;
+
+import com.dinuberinde.api.limiter.ApiLimiter;
+import com.dinuberinde.api.limiter.ApiLimiterException;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.ConsumeResult;
+import com.dinuberinde.api.limiter.ConsumeStatus;
+import com.dinuberinde.api.limiter.UnknownPolicy;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A filter of the JDK HttpServer which consumes a call of the API named by the path of each request,
+ * on behalf of the client named by a request header. The path is decoded and normalized, as the server
+ * does to select the context of the request, so that an encoded character or a dot segment cannot name
+ * another API than the one served. The path is then resolved by the registry,
+ * so that a root API such as /api/* limits all the paths below it.
+ * Requests within the limits get the X-RateLimit-Remaining and X-RateLimit-Reset headers and go on along the chain,
+ * while the other requests get a 429 response with the same headers and Retry-After.
+ * The header values are immutable lists, precomputed for small numbers of calls and seconds.
+ * Requests of unknown APIs and clients are consumed from the fallback API of the registry, if any.
+ * Otherwise, since a filter cannot throw to the client, they are never reported as over a limit:
+ * with the {@link UnknownPolicy#ALLOW} policy they go on along the chain, with the {@link UnknownPolicy#DENY}
+ * policy they get a 403 response without limit headers, and with the default {@link UnknownPolicy#THROW} policy
+ * the requests of unknown APIs, such as /health, go on along the chain, since no limit applies to them,
+ * while the requests of unknown clients, such as the requests without the client header, get a 403 response,
+ * so that a client cannot escape its limit by dropping the header.
+ */
+@ThreadSafe
+public final class ApiLimiterFilter extends Filter {
+    public final static String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public final static String RESET_HEADER = "X-RateLimit-Reset";
+    public final static String RETRY_AFTER_HEADER = "Retry-After";
+    public final static int TOO_MANY_REQUESTS = 429;
+    public final static int FORBIDDEN = 403;
+    private final static byte[] TOO_MANY_REQUESTS_BODY = "Too Many Requests".getBytes(StandardCharsets.US_ASCII);
+    private final static byte[] FORBIDDEN_BODY = "Forbidden".getBytes(StandardCharsets.US_ASCII);
+    private final static int CACHED_VALUES = 1024;
+    private final static List<List<String>> VALUES = values();
+
+    private final ApiLimiterRegistry registry;
+    private final String clientHeader;
+    private final ThreadLocal<ConsumeResult> results = ThreadLocal.withInitial(ConsumeResult::new);
+
+    /**
+     * It builds a filter limiting the requests with the default registry of {@link ApiLimiter}.
+     * @param clientHeader the request header naming the client, or null to limit the APIs for all clients
+     */
+    public ApiLimiterFilter(String clientHeader) {
+        this(ApiLimiter.getDefault(), clientHeader);
+    }
+
+    /**
+     * It builds a filter limiting the requests with a registry.
+     * @param registry the registry
+     * @param clientHeader the request header naming the client, or null to limit the APIs for all clients.
+     * Requests without the header are limited by the APIs configured for all clients
+     */
+    public ApiLimiterFilter(ApiLimiterRegistry registry, String clientHeader) {
+        if (registry == null) {
+            throw new ApiLimiterException("Registry cannot be null");
+        }
+
+        this.registry = registry;
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        String apiName = normalize(exchange.getRequestURI().getPath());
+        String client = clientHeader != null ? exchange.getRequestHeaders().getFirst(clientHeader) : null;
+        ConsumeResult result = results.get();
+
+        ConsumeStatus status = registry.tryConsume(apiName, client, 1, result);
+        if (status == ConsumeStatus.ALLOWED) {
+            writeLimitHeaders(exchange.getResponseHeaders(), result);
+            chain.doFilter(exchange);
+        } else if (status == ConsumeStatus.REJECTED) {
+            Headers headers = exchange.getResponseHeaders();
+            writeLimitHeaders(headers, result);
+            if (result.getRetryAfter() != ConsumeResult.NEVER) {
+                headers.put(RETRY_AFTER_HEADER, value(seconds(result.getRetryAfter())));
+            }
+
+            respond(exchange, TOO_MANY_REQUESTS, TOO_MANY_REQUESTS_BODY);
+        } else {
+            UnknownPolicy unknownPolicy = registry.getUnknownPolicy();
+            if (unknownPolicy == UnknownPolicy.ALLOW || (unknownPolicy == UnknownPolicy.THROW && status == ConsumeStatus.UNKNOWN_API)) {
+                chain.doFilter(exchange);
+            } else {
+                respond(exchange, FORBIDDEN, FORBIDDEN_BODY);
+            }
+        }
+    }
+
+    @Override
+    public String description() {
+        return "api-limiter";
+    }
+
+    /**
+     * It removes the empty and dot segments of a decoded path, resolving the double dot segments.
+     * @param path the path, possibly null
+     * @return the normalized path, the path itself if already normalized
+     */
+    private static String normalize(String path) {
+        if (path == null || (path.indexOf("//") < 0 && path.indexOf("/.") < 0)) {
+            return path;
+        }
+
+        Deque<String> segments = new ArrayDeque<>();
+        for (String segment : path.split("/")) {
+            if (segment.equals("..")) {
+                segments.pollLast();
+            } else if (!segment.isEmpty() && !segment.equals(".")) {
+                segments.addLast(segment);
+            }
+        }
+
+        StringBuilder normalized = new StringBuilder(path.length());
+        for (String segment : segments) {
+            normalized.append('/').append(segment);
+        }
+
+        if (normalized.length() == 0 || path.endsWith("/")) {
+            normalized.append('/');
+        }
+
+        return normalized.toString();
+    }
+
+    private static void writeLimitHeaders(Headers headers, ConsumeResult result) {
+        headers.put(REMAINING_HEADER, value(result.getRemaining()));
+        headers.put(RESET_HEADER, value(seconds(result.getResetTime())));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * It returns the header value of a number, precomputed if the number is small.
+     */
+    private static List<String> value(long number) {
+        return number < CACHED_VALUES ? VALUES.get((int) number) : Collections.singletonList(Long.toString(number));
+    }
+
+    /**
+     * It converts a time in milliseconds to whole seconds, rounding up.
+     */
+    private static long seconds(long millis) {
+        return (millis + 999) / 1000;
+    }
+
+    private static List<List<String>> values() {
+        List<List<String>> values = new ArrayList<>(CACHED_VALUES);
+        for (int i = 0; i < CACHED_VALUES; i++) {
+            values.add(Collections.singletonList(Integer.toString(i)));
+        }
+
+        return values;
+    }
+}
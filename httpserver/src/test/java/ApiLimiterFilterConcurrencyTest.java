@@ -0,0 +1,91 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.httpserver.ApiLimiterFilter;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ApiLimiterFilterConcurrencyTest {
+    private final static int THREADS = 8;
+    private final static int REQUESTS_PER_THREAD = 1000;
+    private final static int MAX_CALLS = 2000;
+
+
+    @Test
+    @DisplayName("MaxCalls = 2000, Timeframe = 60sec -> Should allow exactly the max calls of a local server under concurrent requests")
+    public void shouldAllowMaxCallsUnderConcurrency() throws Exception {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig("/api/throughput-test/*", MAX_CALLS, 60 * 1000));
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        ExecutorService serverExecutor = Executors.newFixedThreadPool(THREADS);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        }).getFilters().add(new ApiLimiterFilter(registry, null));
+        server.start();
+
+        AtomicInteger allowed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+        try {
+            int port = server.getAddress().getPort();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int offset = thread;
+                futures.add(clients.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                        int status = get(port, "/api/throughput-test/" + (offset + i) % 16);
+                        if (status == 204) {
+                            allowed.incrementAndGet();
+                        } else if (status == ApiLimiterFilter.TOO_MANY_REQUESTS) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            clients.shutdownNow();
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+
+        Assertions.assertEquals(MAX_CALLS, allowed.get());
+        Assertions.assertEquals(THREADS * REQUESTS_PER_THREAD - MAX_CALLS, rejected.get());
+    }
+
+    private static int get(int port, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", "127.0.0.1", port, path).openConnection();
+        int status = connection.getResponseCode();
+
+        // read the body to the end so that the connection is kept alive
+        InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (body != null) {
+            while (body.read() != -1);
+            body.close();
+        }
+
+        return status;
+    }
+}
@@ -0,0 +1,141 @@
+import com.dinuberinde.api.limiter.ApiConfig;
+import com.dinuberinde.api.limiter.ApiLimiterRegistry;
+import com.dinuberinde.api.limiter.UnknownPolicy;
+import com.dinuberinde.api.limiter.VirtualClock;
+import com.dinuberinde.api.limiter.httpserver.ApiLimiterFilter;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+public class ApiLimiterFilterTest {
+    private final static String CLIENT_HEADER = "X-Client";
+    private final static String CLIENT = "filterclient";
+
+    private HttpServer server;
+
+
+    @AfterEach
+    public void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 2, Timeframe = 10sec -> Should write the limit headers and reject with 429")
+    public void shouldRejectWithLimitHeaders() throws IOException {
+        VirtualClock clock = new VirtualClock();
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().clock(clock).build();
+        registry.registerApis(new ApiConfig("/api/filter-test/*", 2, 10 * 1000));
+        startServer(registry, null);
+
+        HttpURLConnection connection = get("/api/filter-test/orders", null);
+        Assertions.assertEquals(200, connection.getResponseCode());
+        Assertions.assertEquals("1", connection.getHeaderField(ApiLimiterFilter.REMAINING_HEADER));
+        Assertions.assertEquals("10", connection.getHeaderField(ApiLimiterFilter.RESET_HEADER));
+        Assertions.assertEquals(200, get("/api/filter-test/invoices", null).getResponseCode());
+
+        clock.advance(2500);
+        connection = get("/api/filter-test/orders", null);
+        Assertions.assertEquals(ApiLimiterFilter.TOO_MANY_REQUESTS, connection.getResponseCode());
+        Assertions.assertEquals("0", connection.getHeaderField(ApiLimiterFilter.REMAINING_HEADER));
+        Assertions.assertEquals("8", connection.getHeaderField(ApiLimiterFilter.RETRY_AFTER_HEADER));
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1, Timeframe = 10sec -> Should limit each client named by the request header")
+    public void shouldLimitEachClient() throws IOException {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig("/api/filter-test/orders", 1, 10 * 1000).perClient());
+        startServer(registry, CLIENT_HEADER);
+
+        Assertions.assertEquals(200, get("/api/filter-test/orders", CLIENT).getResponseCode());
+        Assertions.assertEquals(429, get("/api/filter-test/orders", CLIENT).getResponseCode());
+        Assertions.assertEquals(200, get("/api/filter-test/orders", "filterother").getResponseCode());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1, Timeframe = 10sec -> Should limit the API named by the decoded and normalized path")
+    public void shouldNormalizePath() throws IOException {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().unknownPolicy(UnknownPolicy.ALLOW).build();
+        registry.registerApis(new ApiConfig("/api/filter-test/orders", 1, 10 * 1000).perClient());
+        startServer(registry, CLIENT_HEADER);
+
+        Assertions.assertEquals(200, get("/api/filter-test/orders", CLIENT).getResponseCode());
+        Assertions.assertEquals(429, get("/api/filter-test/%6Frders", CLIENT).getResponseCode());
+        Assertions.assertEquals(429, get("/api/filter-test/invoices/../orders", CLIENT).getResponseCode());
+        Assertions.assertEquals(429, get("/api//filter-test/./orders", CLIENT).getResponseCode());
+    }
+
+    @Test
+    @DisplayName("MaxCalls = 1, Timeframe = 10sec -> Should forbid the requests without the client header")
+    public void shouldForbidWithoutClientHeader() throws IOException {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig("/api/filter-test/orders", 1, 10 * 1000).perClient());
+        startServer(registry, CLIENT_HEADER);
+
+        HttpURLConnection connection = get("/api/filter-test/orders", null);
+        Assertions.assertEquals(ApiLimiterFilter.FORBIDDEN, connection.getResponseCode());
+        Assertions.assertNull(connection.getHeaderField(ApiLimiterFilter.REMAINING_HEADER));
+        Assertions.assertEquals(200, get("/api/filter-test/orders", CLIENT).getResponseCode());
+    }
+
+    @Test
+    @DisplayName("Should pass unknown APIs through and forbid unknown clients, unless the registry allows or denies them")
+    public void shouldApplyUnknownPolicy() throws IOException {
+        ApiLimiterRegistry registry = ApiLimiterRegistry.builder().build();
+        registry.registerApis(new ApiConfig("/api/filter-test/orders", 1, 10 * 1000, CLIENT));
+        startServer(registry, CLIENT_HEADER);
+
+        // no limit applies to an unknown API, while an unknown client must not escape the limits
+        HttpURLConnection connection = get("/health", null);
+        Assertions.assertEquals(200, connection.getResponseCode());
+        Assertions.assertNull(connection.getHeaderField(ApiLimiterFilter.REMAINING_HEADER));
+        connection = get("/api/filter-test/orders", "filterother");
+        Assertions.assertEquals(ApiLimiterFilter.FORBIDDEN, connection.getResponseCode());
+        Assertions.assertNull(connection.getHeaderField(ApiLimiterFilter.REMAINING_HEADER));
+
+        registry.setUnknownPolicy(UnknownPolicy.ALLOW);
+        Assertions.assertEquals(200, get("/health", null).getResponseCode());
+        Assertions.assertEquals(200, get("/api/filter-test/orders", "filterother").getResponseCode());
+
+        registry.setUnknownPolicy(UnknownPolicy.DENY);
+        connection = get("/health", null);
+        Assertions.assertEquals(ApiLimiterFilter.FORBIDDEN, connection.getResponseCode());
+        Assertions.assertNull(connection.getHeaderField(ApiLimiterFilter.RETRY_AFTER_HEADER));
+        Assertions.assertEquals(ApiLimiterFilter.FORBIDDEN, get("/api/filter-test/orders", null).getResponseCode());
+    }
+
+    private void startServer(ApiLimiterRegistry registry, String clientHeader) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        }).getFilters().add(new ApiLimiterFilter(registry, clientHeader));
+        server.start();
+    }
+
+    private HttpURLConnection get(String path, String client) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", "127.0.0.1", server.getAddress().getPort(), path).openConnection();
+        if (client != null) {
+            connection.setRequestProperty(CLIENT_HEADER, client);
+        }
+
+        connection.getResponseCode();
+        InputStream body = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (body != null) {
+            while (body.read() != -1);
+            body.close();
+        }
+
+        return connection;
+    }
+}